@@ -0,0 +1,49 @@
+package bench;
+
+import database.DatabaseConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of getting a connection: borrowing from the pool versus opening the
+ * SQLite file directly, as every DAO call did before pooling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionBenchmark {
+
+    @Benchmark
+    public boolean borrowReader(SeededDatabase db) throws SQLException {
+        try (Connection connection = DatabaseConnection.connectForRead()) {
+            return connection.isReadOnly();
+        }
+    }
+
+    @Benchmark
+    public boolean borrowWriter(SeededDatabase db) throws SQLException {
+        try (Connection connection = DatabaseConnection.connect()) {
+            return connection.getAutoCommit();
+        }
+    }
+
+    @Benchmark
+    public boolean openPhysical(SeededDatabase db) throws SQLException {
+        try (Connection connection = DriverManager
+                .getConnection("jdbc:sqlite:" + DatabaseConnection.getDatabasePath())) {
+            return connection.getAutoCommit();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package bench;
+
+import dao.DeviceDAO;
+import dao.DeviceStats;
+import dao.LogDAO;
+import dao.LogPage;
+import dao.LogQuery;
+import model.Device;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each DAO query against the seeded database. Full-table reads (getAll,
+ * getActionLogs) grow with the row count; the indexed ones should not.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DaoBenchmark {
+    private static final long WEEK_MS = 7L * 24 * 60 * 60 * 1000;
+
+    @Benchmark
+    public List<Device> deviceGetAll(SeededDatabase db) {
+        return DeviceDAO.getAll();
+    }
+
+    @Benchmark
+    public Device deviceGetById(SeededDatabase db) {
+        return DeviceDAO.getById(1 + ThreadLocalRandom.current().nextInt(db.rows));
+    }
+
+    @Benchmark
+    public int deviceCountByStatus(SeededDatabase db) {
+        return DeviceDAO.countByStatus("broken");
+    }
+
+    @Benchmark
+    public DeviceStats deviceStats(SeededDatabase db) {
+        return DeviceDAO.getStats();
+    }
+
+    @Benchmark
+    public List<String[]> actionLogsGetAll(SeededDatabase db) {
+        return LogDAO.getActionLogs();
+    }
+
+    @Benchmark
+    public LogPage actionLogsFirstPage(SeededDatabase db) throws SQLException {
+        return LogDAO.getLogPage(new LogQuery(LogQuery.Kind.ACTION), null, 200);
+    }
+
+    @Benchmark
+    public LogPage actionLogsFirstPageByText(SeededDatabase db) throws SQLException {
+        LogQuery query = new LogQuery(LogQuery.Kind.ACTION);
+        query.setSort(LogQuery.SortKey.TEXT, true);
+        return LogDAO.getLogPage(query, null, 200);
+    }
+
+    @Benchmark
+    public int actionLogsCountLastWeek(SeededDatabase db) {
+        LogQuery query = new LogQuery(LogQuery.Kind.ACTION);
+        query.setDateRange(System.currentTimeMillis() - WEEK_MS, null);
+        return LogDAO.countLogs(query);
+    }
+}
@@ -0,0 +1,83 @@
+package bench;
+
+import dao.DaoUtils;
+import database.DatabaseConnection;
+import model.Device;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row mapping cost: reading 1000 device rows with {@link DaoUtils#mapDevice}
+ * versus only stepping the cursor. The difference is the mapping itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MappingBenchmark {
+    private static final String SQL = "SELECT * FROM devices WHERE deleted_at IS NULL ORDER BY id LIMIT 1000";
+
+    private Connection connection;
+    private PreparedStatement statement;
+
+    @Setup(Level.Trial)
+    public void prepare(SeededDatabase db) throws SQLException {
+        connection = DatabaseConnection.connectForRead();
+        statement = connection.prepareStatement(SQL);
+    }
+
+    @TearDown(Level.Trial)
+    public void release() throws SQLException {
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public int stepOnly() throws SQLException {
+        int n = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    public void mapDevice(Blackhole bh) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                Device d = DaoUtils.mapDevice(rs);
+                bh.consume(d);
+            }
+        }
+    }
+
+    @Benchmark
+    public void rowToArray(Blackhole bh) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(DaoUtils.rowToArray(rs, 10));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package bench;
+
+import database.ConnectionPool;
+import database.DatabaseConnection;
+import database.DatabaseInit;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import tools.DataGenerator;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A SQLite database seeded with {@code rows} devices and {@code rows} action
+ * logs, shared by every benchmark of a trial.
+ *
+ * Rows come from {@link DataGenerator} seeded with the row count. Each row
+ * count gets its own file under {@code clims.bench.dir} (default
+ * build/bench-data), created on first use and reused afterwards, so the
+ * slow 1M seed runs once. JMH forks a fresh JVM per parameter value, which
+ * lets {@code clims.db.path} be set before the database classes load.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException {
+        File dir = new File(System.getProperty("clims.bench.dir", "build/bench-data"));
+        dir.mkdirs();
+        File db = new File(dir, "clims-" + rows + ".sqlite");
+        System.setProperty("clims.db.path", db.getPath());
+        if (!DatabaseConnection.getDatabasePath().equals(db.getPath())) {
+            throw new IllegalStateException("database classes loaded before the benchmark set clims.db.path");
+        }
+        DatabaseInit.initialize();
+        DataGenerator generator = new DataGenerator(rows, 365, 5000);
+        int missingDevices = rows - count("devices");
+        if (missingDevices > 0) {
+            generator.devices(missingDevices);
+        }
+        int missingLogs = rows - count("action_logs");
+        if (missingLogs > 0) {
+            generator.actionLogs(missingLogs);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        ConnectionPool.getInstance().close();
+    }
+
+    private static int count(String table) {
+        try (Connection connection = DatabaseConnection.connectForRead();
+                Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot count " + table, e);
+        }
+    }
+}
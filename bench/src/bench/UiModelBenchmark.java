@@ -0,0 +1,102 @@
+package bench;
+
+import dao.DeviceRepository;
+import dao.DeviceSearchIndex;
+import model.Device;
+import model.DeviceStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ui.components.DeviceTableModel;
+
+import javax.swing.RowFilter;
+import javax.swing.table.TableRowSorter;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manage Devices hot paths off the database: filling the table model, building
+ * and querying the search index, and the status RowFilter the screen installs
+ * on its sorter. Runs headless; nothing is shown.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class UiModelBenchmark {
+    private List<Device> devices;
+    private DeviceTableModel model;
+    private TableRowSorter<DeviceTableModel> sorter;
+    private DeviceSearchIndex index;
+    private RowFilter<DeviceTableModel, Object> statusFilter;
+
+    @Setup(Level.Trial)
+    public void load(SeededDatabase db) {
+        devices = DeviceRepository.getInstance().getAll();
+        model = new DeviceTableModel();
+        model.setDevices(devices);
+        sorter = new TableRowSorter<>(model);
+        index = buildIndex();
+        // same filter as ManageDevicesUI's status checkboxes
+        Set<DeviceStatus> statuses = EnumSet.of(DeviceStatus.BROKEN, DeviceStatus.MISSING);
+        statusFilter = new RowFilter<DeviceTableModel, Object>() {
+            @Override
+            public boolean include(Entry<? extends DeviceTableModel, ? extends Object> entry) {
+                DeviceStatus status = entry.getModel().getDeviceAt((Integer) entry.getIdentifier())
+                        .getDeviceStatus();
+                return status != null && statuses.contains(status);
+            }
+        };
+    }
+
+    @Benchmark
+    public int populateTableModel() {
+        DeviceTableModel fresh = new DeviceTableModel();
+        fresh.setDevices(devices);
+        return fresh.getRowCount();
+    }
+
+    @Benchmark
+    public DeviceSearchIndex buildSearchIndex() {
+        return buildIndex();
+    }
+
+    @Benchmark
+    public BitSet searchSelective() {
+        return index.search("dev-00012");
+    }
+
+    @Benchmark
+    public BitSet searchBroad() {
+        return index.search("lab");
+    }
+
+    @Benchmark
+    public int statusRowFilter() {
+        sorter.setRowFilter(statusFilter);
+        int visible = sorter.getViewRowCount();
+        sorter.setRowFilter(null);
+        return visible;
+    }
+
+    private DeviceSearchIndex buildIndex() {
+        DeviceSearchIndex built = new DeviceSearchIndex();
+        for (Device d : devices) {
+            built.put(d);
+        }
+        return built;
+    }
+}
@@ -1,7 +1,13 @@
 package com.spectra_clims;
 
+import dao.AuditLogWriter;
+import dao.LogArchiver;
+import dao.TombstonePurger;
+import database.ConnectionPool;
 import database.DatabaseInit;
+import ui.EdtWatchdog;
 import ui.views.LoginUI;
+import util.MetricsRegistry;
 
 /**
  * Application entry point for the CLIMS desktop application.
@@ -18,12 +24,31 @@ public class Main {
      */
     public static void main(String[] args) {
         // Ensure database file and tables exist
-        // open+close a connection to ensure DB file is created, then initialize schema
-        try (java.sql.Connection connection = database.DatabaseConnection.connect()) {
-            // no-op; opening/closing the connection ensures the DB file is created
-        } catch (Exception ignored) {
-        }
+        // creating the pool checks the DB file once, then initialize schema
+        ConnectionPool pool = ConnectionPool.getInstance();
         DatabaseInit.initialize();
+        // physically remove soft-deleted devices in small batches, off the UI
+        TombstonePurger.getInstance().start();
+        // move old login/action logs to the archive database
+        LogArchiver.getInstance().start();
+        // append DAO and connection metrics to lib/logs/metrics.log periodically
+        MetricsRegistry.getInstance().start();
+        // log EDT stalls (frozen windows) to lib/logs/edt-stalls.log
+        EdtWatchdog.getInstance().start();
+
+        // On exit, write any queued audit log rows, then close pooled connections
+        // and report how much work the pool saved
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            TombstonePurger.getInstance().shutdown();
+            LogArchiver.getInstance().shutdown();
+            AuditLogWriter.getInstance().shutdown(5_000);
+            System.out.println("Audit log writer: " + AuditLogWriter.getInstance().describeStats());
+            System.out.println("Connection pool: " + pool.describeStats());
+            System.out.println("Statement cache: " + pool.describeStatementCacheStats());
+            pool.close();
+            EdtWatchdog.getInstance().shutdown();
+            MetricsRegistry.getInstance().shutdown();
+        }, "clims-shutdown"));
 
         // Launch login UI
         javax.swing.SwingUtilities.invokeLater(() -> {
@@ -0,0 +1,365 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.DateTimes;
+import util.RollingFileLog;
+
+/**
+ * Asynchronous sink for login and action log rows.
+ *
+ * {@link LogDAO#insertLoginLog} and {@link LogDAO#insertActionLog} are called
+ * from Swing event handlers, so instead of writing immediately they queue the
+ * row here. A background thread collects pending rows for up to
+ * {@code clims.log.maxLatencyMs} (or until {@code clims.log.batchSize} rows are
+ * waiting) and writes them in one transaction with batched inserts.
+ *
+ * If the bounded queue is full the caller waits briefly, and if it is still
+ * full the row is written synchronously on the caller's thread so that no
+ * audit entry is ever dropped. Both cases are counted so backpressure shows up
+ * in the stats.
+ *
+ * A batch that fails to commit (e.g. the database is busy) is retried up to
+ * {@code clims.log.retries} times with a doubling pause, then written one row
+ * at a time so a single bad row cannot take the others with it. Rows that
+ * still cannot be written are counted as failed and appended to
+ * {@code clims.log.failedFile} (default lib/logs/audit-failed.log) so they can
+ * be recovered by hand.
+ */
+public final class AuditLogWriter {
+    private static final int QUEUE_CAPACITY = Math.max(1, Integer.getInteger("clims.log.queueCapacity", 4096));
+    private static final int MAX_BATCH = Math.max(1, Integer.getInteger("clims.log.batchSize", 256));
+    private static final long MAX_LATENCY_MS = Math.max(0, Long.getLong("clims.log.maxLatencyMs", 200L));
+    private static final long OFFER_TIMEOUT_MS = 50;
+    private static final long POLL_SLICE_MS = 10;
+    private static final int RETRIES = Math.max(0, Integer.getInteger("clims.log.retries", 3));
+    private static final long RETRY_BACKOFF_MS = 50;
+    private static final String FAILED_FILE = System.getProperty("clims.log.failedFile",
+            "lib/logs/audit-failed.log");
+
+    private static final AuditLogWriter INSTANCE = new AuditLogWriter();
+
+    /** Which log table a queued row belongs to. */
+    enum Kind {
+        LOGIN, ACTION
+    }
+
+    /** A queued log row. */
+    static final class Entry {
+        final Kind kind;
+        final int userId;
+        final String text;
+        final String timestamp;
+        final long timestampMillis;
+
+        Entry(Kind kind, int userId, String text, String timestamp) {
+            this.kind = kind;
+            this.userId = userId;
+            this.text = text == null ? "" : text; // reports sort and page by the text
+            this.timestamp = timestamp;
+            Long parsed = DateTimes.parseLogTimestamp(timestamp);
+            this.timestampMillis = parsed != null ? parsed : System.currentTimeMillis();
+        }
+    }
+
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Object drainLock = new Object();
+    private final Thread worker;
+    private volatile boolean flushRequested;
+    private volatile boolean stopped;
+    private long pending; // guarded by drainLock
+    private final RollingFileLog failedLog = new RollingFileLog(FAILED_FILE, 1024 * 1024, 3);
+
+    // Metrics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong blockedOffers = new AtomicLong();
+    private final AtomicLong callerRuns = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+
+    private AuditLogWriter() {
+        worker = new Thread(this::runLoop, "clims-audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Get the shared writer.
+     *
+     * @return application-wide audit log writer
+     */
+    public static AuditLogWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queue a row for writing. Normally returns immediately.
+     *
+     * @param entry row to write
+     */
+    void submit(Entry entry) {
+        submitted.incrementAndGet();
+        if (stopped) {
+            writeOnCaller(entry);
+            return;
+        }
+        synchronized (drainLock) {
+            pending++;
+        }
+        boolean queued = queue.offer(entry);
+        if (!queued) {
+            blockedOffers.incrementAndGet();
+            try {
+                queued = queue.offer(entry, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            markDone(1);
+            writeOnCaller(entry);
+            return;
+        }
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+    }
+
+    // no retries here: the caller may be the EDT
+    private void writeOnCaller(Entry entry) {
+        callerRuns.incrementAndGet();
+        List<Entry> rows = Collections.singletonList(entry);
+        if (LogDAO.writeBatch(rows)) {
+            record(rows.size());
+        } else {
+            fail(rows);
+        }
+    }
+
+    private void runLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(POLL_SLICE_MS * 10, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                write(batch);
+                markDone(batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                // interrupted by shutdown: loop drains what's left, then exits
+            } catch (RuntimeException e) {
+                System.out.println("Audit log writer error: " + e.getMessage());
+                fail(batch);
+                markDone(batch.size());
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+            markDone(batch.size());
+        }
+    }
+
+    /*
+     * Write a batch, retrying with backoff while it fails, then falling back
+     * to one transaction per row. An interrupt (shutdown) skips the remaining
+     * pauses but not the fallback.
+     */
+    private void write(List<Entry> batch) {
+        long backoffMs = RETRY_BACKOFF_MS;
+        for (int attempt = 0;; attempt++) {
+            if (LogDAO.writeBatch(batch)) {
+                record(batch.size());
+                return;
+            }
+            if (attempt >= RETRIES || stopped) {
+                break;
+            }
+            retries.incrementAndGet();
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+            backoffMs *= 2;
+        }
+        if (batch.size() == 1) {
+            fail(batch);
+            return;
+        }
+        for (Entry entry : batch) {
+            List<Entry> row = Collections.singletonList(entry);
+            if (LogDAO.writeBatch(row)) {
+                record(1);
+            } else {
+                fail(row);
+            }
+        }
+    }
+
+    /*
+     * Gather more rows into the batch until it is full, the latency budget for
+     * the first row is spent, or a flush/shutdown asks us to write now.
+     */
+    private void collect(List<Entry> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_LATENCY_MS);
+        while (batch.size() < MAX_BATCH) {
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (batch.size() >= MAX_BATCH || remainingMs <= 0 || flushRequested || stopped) {
+                return;
+            }
+            Entry next = queue.poll(Math.min(remainingMs, POLL_SLICE_MS), TimeUnit.MILLISECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void record(int rows) {
+        written.addAndGet(rows);
+        batches.incrementAndGet();
+    }
+
+    // count rows that could not be written and keep them in the failed-rows file
+    private void fail(List<Entry> rows) {
+        failed.addAndGet(rows.size());
+        StringBuilder out = new StringBuilder();
+        for (Entry entry : rows) {
+            out.append(entry.kind).append('\t').append(entry.userId).append('\t').append(entry.timestamp)
+                    .append('\t').append(entry.text.replace('\n', ' ')).append(System.lineSeparator());
+        }
+        System.out.println("Audit log writer: " + rows.size() + " rows not written, kept in " + FAILED_FILE);
+        failedLog.append(out.toString());
+    }
+
+    private void markDone(int rows) {
+        synchronized (drainLock) {
+            pending -= rows;
+            if (pending <= 0) {
+                drainLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Write everything queued so far, waiting up to the given time.
+     *
+     * @param timeoutMs maximum time to wait
+     * @return true if the queue was fully written in time
+     */
+    public boolean flush(long timeoutMs) {
+        flushRequested = true;
+        try {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            synchronized (drainLock) {
+                while (pending > 0) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    drainLock.wait(remaining);
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            flushRequested = false;
+        }
+    }
+
+    /**
+     * Flush pending rows and stop the background thread. Rows submitted after
+     * shutdown are written synchronously.
+     *
+     * @param timeoutMs maximum time to wait for the flush
+     */
+    public void shutdown(long timeoutMs) {
+        boolean drained = flush(timeoutMs);
+        stopped = true;
+        worker.interrupt();
+        try {
+            worker.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!drained) {
+            System.out.println("Audit log writer: shutdown timed out with " + queue.size() + " rows queued");
+        }
+    }
+
+    // --- Metrics -----------------------------------------------------------
+
+    /** @return rows handed to the writer */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /** @return rows successfully written */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /** @return rows that could not be written even after retrying */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /** @return batch retries after a failed write */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /** @return number of transactions used to write rows */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /** @return submits that found the queue full and had to wait */
+    public long getBlockedOfferCount() {
+        return blockedOffers.get();
+    }
+
+    /** @return rows written synchronously on the caller because the queue stayed full */
+    public long getCallerRunCount() {
+        return callerRuns.get();
+    }
+
+    /** @return deepest the queue has been */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /** @return rows currently waiting in the queue */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * One-line summary of the writer metrics, suitable for logging.
+     *
+     * @return human-readable metrics summary
+     */
+    public String describeStats() {
+        long b = batches.get();
+        double avgBatch = b == 0 ? 0 : (double) written.get() / b;
+        return String.format(
+                "submitted=%d written=%d failed=%d retries=%d batches=%d avgBatch=%.1f blocked=%d callerRuns=%d "
+                        + "maxDepth=%d",
+                getSubmittedCount(), getWrittenCount(), getFailedCount(), getRetryCount(), b, avgBatch,
+                getBlockedOfferCount(), getCallerRunCount(), getMaxQueueDepth());
+    }
+}
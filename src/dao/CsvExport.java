@@ -0,0 +1,97 @@
+package dao;
+
+import util.Csv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Streams a query's rows to a CSV file. Rows are read from a forward-only
+ * ResultSet and written through a buffered writer one at a time, so memory use
+ * does not depend on how many rows are exported.
+ *
+ * The file is written next to the target as {@code <name>.part} and moved into
+ * place only when complete, so a cancelled or failed export never leaves a
+ * truncated file behind.
+ */
+final class CsvExport {
+    // rows between progress reports and cancel checks
+    private static final int PROGRESS_INTERVAL = 1000;
+    private static final int FETCH_SIZE = 1000;
+
+    private CsvExport() {
+    }
+
+    /**
+     * Run a query and write its rows to a CSV file.
+     *
+     * @param connection connection to read from
+     * @param sql        query; its columns are written in order
+     * @param params     bind values for the query
+     * @param header     CSV header row
+     * @param file       target file
+     * @param totalRows  expected row count, for progress
+     * @param monitor    progress and cancel hook
+     * @return rows written, or -1 if the export was cancelled
+     * @throws SQLException if the query fails
+     * @throws IOException  if the file cannot be written
+     */
+    static long write(Connection connection, String sql, List<Object> params, String[] header, Path file,
+            long totalRows, ExportMonitor monitor) throws SQLException, IOException {
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        boolean complete = false;
+        try (PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            long rows = 0;
+            try (ResultSet rs = ps.executeQuery();
+                    BufferedWriter out = Files.newBufferedWriter(part, StandardCharsets.UTF_8)) {
+                writeRecord(out, header);
+                String[] values = new String[header.length];
+                monitor.progress(0, totalRows);
+                while (rs.next()) {
+                    for (int c = 0; c < values.length; c++) {
+                        values[c] = rs.getString(c + 1);
+                    }
+                    writeRecord(out, values);
+                    if (++rows % PROGRESS_INTERVAL == 0) {
+                        if (monitor.isCancelled()) {
+                            return -1;
+                        }
+                        monitor.progress(rows, totalRows);
+                    }
+                }
+            }
+            monitor.progress(rows, Math.max(rows, totalRows));
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+            complete = true;
+            return rows;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    private static void writeRecord(BufferedWriter out, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(Csv.escape(values[i]));
+        }
+        out.write("\r\n");
+    }
+}
@@ -10,9 +10,57 @@ import java.sql.SQLException;
  * Small DAO utility helpers to reduce duplication in DAOs.
  */
 public final class DaoUtils {
+    private static final int MAX_CACHED_ARITY = 64;
+    private static final String[] PLACEHOLDERS = new String[MAX_CACHED_ARITY + 1];
+
+    static {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= MAX_CACHED_ARITY; i++) {
+            if (i > 1)
+                sb.append(",");
+            sb.append("?");
+            PLACEHOLDERS[i] = sb.toString();
+        }
+    }
+
     private DaoUtils() {
     }
 
+    /**
+     * Round an IN (...) list length up to the next power of two so that queries
+     * with varying list sizes share a handful of SQL strings (and cached
+     * statements). Callers fill the extra slots by repeating the last value,
+     * which doesn't change the result of an IN test.
+     *
+     * @param count number of values to bind (must be positive)
+     * @return padded arity, or {@code count} itself for very long lists
+     */
+    public static int paddedArity(int count) {
+        if (count > MAX_CACHED_ARITY) {
+            return count;
+        }
+        return Integer.highestOneBit(count) == count ? count : Integer.highestOneBit(count) << 1;
+    }
+
+    /**
+     * Comma-separated {@code ?} placeholders for an IN (...) list.
+     *
+     * @param arity number of placeholders
+     * @return placeholder string such as "?,?,?"
+     */
+    public static String placeholders(int arity) {
+        if (arity <= MAX_CACHED_ARITY) {
+            return PLACEHOLDERS[arity];
+        }
+        StringBuilder sb = new StringBuilder(arity * 2);
+        for (int i = 0; i < arity; i++) {
+            if (i > 0)
+                sb.append(",");
+            sb.append("?");
+        }
+        return sb.toString();
+    }
+
     public static Device mapDevice(ResultSet rs) throws SQLException {
         /**
          * Map the current row of a ResultSet to a Device model instance.
@@ -0,0 +1,56 @@
+package dao;
+
+import model.Device;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes a change made through the {@link DeviceRepository}.
+ */
+public class DeviceChangeEvent {
+
+    /** Kind of change. */
+    public enum Type {
+        /** New devices were added. */
+        INSERTED,
+        /** Existing devices were modified. */
+        UPDATED,
+        /** Devices were removed. */
+        DELETED,
+        /** The whole cache was reloaded; listeners should re-read everything. */
+        RELOADED
+    }
+
+    private final Type type;
+    private final List<Device> devices;
+
+    /**
+     * Create an event.
+     *
+     * @param type    kind of change
+     * @param devices copies of the affected devices (empty for RELOADED)
+     */
+    public DeviceChangeEvent(Type type, List<Device> devices) {
+        this.type = type;
+        this.devices = Collections.unmodifiableList(devices);
+    }
+
+    /**
+     * Get the kind of change.
+     *
+     * @return change type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get the affected devices. For DELETED only the ids are meaningful.
+     *
+     * @return unmodifiable list of device copies
+     */
+    public List<Device> getDevices() {
+        return devices;
+    }
+}
@@ -0,0 +1,17 @@
+package dao;
+
+/**
+ * Receives notifications when devices change through the
+ * {@link DeviceRepository}. Called on the thread that performed the write, so
+ * Swing listeners must hop to the EDT themselves.
+ */
+public interface DeviceChangeListener {
+
+    /**
+     * Called after a change has been written to the database and applied to
+     * the in-memory cache.
+     *
+     * @param event what changed
+     */
+    void devicesChanged(DeviceChangeEvent event);
+}
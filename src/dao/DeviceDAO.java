@@ -2,15 +2,32 @@ package dao;
 
 import model.Device;
 import database.DatabaseConnection;
+import util.MetricsRegistry;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class DeviceDAO {
+    // Dashboard stats snapshot, dropped whenever a device row changes
+    private static final Object STATS_LOCK = new Object();
+    private static DeviceStats cachedStats; // guarded by STATS_LOCK
+    private static long statsVersion; // guarded by STATS_LOCK
+
+    private static final String INSERT_SQL = "INSERT INTO devices (device_number,type,brand,model,status,location,purchase_date,notes,cost) VALUES (?,?,?,?,?,?,?,?,?)";
+    // rows per executeBatch call in insertBatch
+    private static final int BATCH_SIZE = 500;
+    // ids per UPDATE ... WHERE id IN (...) in bulkUpdate
+    private static final int BULK_CHUNK = 64;
 
     /**
      * Fetch all devices from the database.
@@ -18,61 +35,401 @@ public class DeviceDAO {
      * @return list of Device objects (empty list if none or on error)
      */
     public static List<Device> getAll() {
-        List<Device> devices = new ArrayList<>();
-        String sql = "SELECT * FROM devices ORDER BY id";
-        try (Connection connection = DatabaseConnection.connect();
-                PreparedStatement statement = connection.prepareStatement(sql);
-                ResultSet rs = statement.executeQuery()) {
+        try {
+            return readAll();
+        } catch (SQLException e) {
+            System.out.println("Device fetch error: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
-            while (rs.next()) {
-                devices.add(DaoUtils.mapDevice(rs));
+    /**
+     * Like {@link #getAll()}, but reports a failed read instead of returning
+     * an empty list, so the repository can tell "no devices" from an error.
+     *
+     * @return list of devices
+     * @throws SQLException if the devices cannot be read
+     */
+    static List<Device> readAll() throws SQLException {
+        List<Device> devices = new ArrayList<>();
+        String sql = "SELECT * FROM devices WHERE deleted_at IS NULL ORDER BY id";
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connectForRead()) {
+            if (connection == null) {
+                throw new SQLException("no database connection");
+            }
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                    ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    devices.add(DaoUtils.mapDevice(rs));
+                }
             }
         } catch (SQLException e) {
-            System.out.println("Device fetch error: " + e.getMessage());
+            MetricsRegistry.error("DeviceDAO.getAll");
+            throw e;
+        } finally {
+            MetricsRegistry.record("DeviceDAO.getAll", System.nanoTime() - startNanos);
         }
         return devices;
     }
 
     /**
-     * Insert a new device row into the database.
+     * Insert a new device row into the database. On success the generated id is
+     * written back to {@code d}.
      *
      * @param d Device to insert (id is ignored)
      * @return true if insertion succeeded, false otherwise
      */
     public static boolean insert(Device d) {
-        String sql = "INSERT INTO devices (device_number,type,brand,model,status,location,purchase_date,notes,cost) VALUES (?,?,?,?,?,?,?,?,?)";
+        long startNanos = System.nanoTime();
         try (Connection connection = DatabaseConnection.connect();
-                PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, d.getDeviceNumber());
-            statement.setString(2, d.getType());
-            statement.setString(3, d.getBrand());
-            statement.setString(4, d.getModel());
-            statement.setString(5, d.getStatus());
-            statement.setString(6, d.getLocation());
-            statement.setString(7, d.getPurchaseDate());
-            statement.setString(8, d.getNotes());
-            statement.setDouble(9, d.getCost());
-            return statement.executeUpdate() > 0;
+                PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            bindInsert(statement, d);
+            if (!changed(statement.executeUpdate())) {
+                return false;
+            }
+            // same pooled writer connection, so this is the row we just inserted
+            try (PreparedStatement idStatement = connection.prepareStatement("SELECT last_insert_rowid()");
+                    ResultSet rs = idStatement.executeQuery()) {
+                if (rs.next()) {
+                    d.setId(rs.getInt(1));
+                }
+            }
+            return true;
         } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.insert");
             System.out.println("Insert device error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("DeviceDAO.insert", System.nanoTime() - startNanos);
         }
         return false;
     }
 
     /**
-     * Delete a device by id.
+     * Insert many devices in a single transaction, reusing one prepared
+     * statement and sending the rows in executeBatch chunks. Either every row
+     * is inserted or none is. Generated ids are not written back; reload the
+     * devices afterwards.
+     *
+     * The devices are pulled from the iterator while inserting, so a caller can
+     * stream them from a file. If the iterator throws, the transaction is
+     * rolled back and the exception is rethrown.
+     *
+     * @param devices devices to insert (ids are ignored)
+     * @return number of rows inserted, or -1 if the insert failed and was rolled
+     *         back
+     */
+    public static int insertBatch(Iterator<Device> devices) {
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connect()) {
+            if (connection == null) {
+                System.out.println("Insert device batch failed: no database connection");
+                return -1;
+            }
+            connection.setAutoCommit(false);
+            boolean committed = false;
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                int total = 0;
+                int pending = 0;
+                while (devices.hasNext()) {
+                    bindInsert(statement, devices.next());
+                    statement.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        total += pending;
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                    total += pending;
+                }
+                connection.commit();
+                committed = true;
+                changed(total);
+                return total;
+            } finally {
+                if (!committed) {
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.insertBatch");
+            System.out.println("Insert device batch error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("DeviceDAO.insertBatch", System.nanoTime() - startNanos);
+        }
+        return -1;
+    }
+
+    private static void bindInsert(PreparedStatement statement, Device d) throws SQLException {
+        statement.setString(1, d.getDeviceNumber());
+        statement.setString(2, d.getType());
+        statement.setString(3, d.getBrand());
+        statement.setString(4, d.getModel());
+        statement.setString(5, d.getStatus());
+        statement.setString(6, d.getLocation());
+        statement.setString(7, d.getPurchaseDate());
+        statement.setString(8, d.getNotes());
+        statement.setDouble(9, d.getCost());
+    }
+
+    /**
+     * Set status, location and/or notes on many devices in one transaction,
+     * using {@code UPDATE ... WHERE id IN (...)} statements of up to 64 ids.
+     *
+     * @param ids      ids of the devices to change
+     * @param status   new status, or null to leave unchanged
+     * @param location new location, or null to leave unchanged
+     * @param notes    new notes, or null to leave unchanged
+     * @return number of rows updated, or -1 if the update failed and was rolled
+     *         back
+     */
+    public static int bulkUpdate(List<Integer> ids, String status, String location, String notes) {
+        List<String> sets = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        if (status != null) {
+            sets.add("status=?");
+            values.add(status);
+        }
+        if (location != null) {
+            sets.add("location=?");
+            values.add(location);
+        }
+        if (notes != null) {
+            sets.add("notes=?");
+            values.add(notes);
+        }
+        if (sets.isEmpty()) {
+            return 0;
+        }
+        return updateWhereIdIn("DeviceDAO.bulkUpdate", "Bulk update devices", String.join(",", sets), values, ids);
+    }
+
+    /**
+     * Soft-delete many devices: set their {@code deleted_at} tombstone in one
+     * transaction. Deleted devices disappear from every read but stay in the
+     * table until {@link #purgeDeleted} removes them, so the delete can be
+     * undone with {@link #restore}.
+     *
+     * @param ids ids of the devices to delete
+     * @return number of devices deleted, or -1 if the delete failed and was
+     *         rolled back
+     */
+    public static int bulkDelete(List<Integer> ids) {
+        return updateWhereIdIn("DeviceDAO.bulkDelete", "Bulk delete devices", "deleted_at=?",
+                Collections.singletonList(System.currentTimeMillis()), ids);
+    }
+
+    /**
+     * Undo a soft delete by clearing the tombstones of the given devices.
+     * Devices already purged cannot be restored.
+     *
+     * @param ids ids of deleted devices
+     * @return number of devices restored, or -1 on error
+     */
+    public static int restore(List<Integer> ids) {
+        return updateWhereIdIn("DeviceDAO.restore", "Restore devices", "deleted_at=NULL", Collections.emptyList(),
+                ids, "deleted_at IS NOT NULL");
+    }
+
+    /**
+     * Physically delete up to {@code limit} tombstoned devices deleted before
+     * the cutoff. Called repeatedly by {@link TombstonePurger} so each write
+     * transaction stays short.
+     *
+     * @param deletedBefore epoch millis; only older tombstones are purged
+     * @param limit         maximum rows to delete
+     * @return number of rows purged, or -1 on error
+     */
+    public static int purgeDeleted(long deletedBefore, int limit) {
+        String sql = "DELETE FROM devices WHERE id IN (SELECT id FROM devices WHERE deleted_at IS NOT NULL AND deleted_at < ? LIMIT ?)";
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connect();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, deletedBefore);
+            statement.setInt(2, limit);
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.purgeDeleted");
+            System.out.println("Purge deleted devices error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("DeviceDAO.purgeDeleted", System.nanoTime() - startNanos);
+        }
+        return -1;
+    }
+
+    /**
+     * Load the live (not deleted) devices with the given ids.
+     *
+     * @param ids device ids
+     * @return devices found, in id order within each chunk (empty on error)
+     */
+    public static List<Device> getByIds(List<Integer> ids) {
+        List<Device> devices = new ArrayList<>();
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connectForRead()) {
+            if (connection == null) {
+                System.out.println("Get devices by id failed: no database connection");
+                return devices;
+            }
+            for (int start = 0; start < ids.size(); start += BULK_CHUNK) {
+                int count = Math.min(BULK_CHUNK, ids.size() - start);
+                int arity = DaoUtils.paddedArity(count);
+                String sql = "SELECT * FROM devices WHERE deleted_at IS NULL AND id IN (" + DaoUtils.placeholders(arity)
+                        + ") ORDER BY id";
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    bindBulk(statement, Collections.emptyList(), ids, start, count, arity);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            devices.add(DaoUtils.mapDevice(rs));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.getByIds");
+            System.out.println("Get devices by id error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("DeviceDAO.getByIds", System.nanoTime() - startNanos);
+        }
+        return devices;
+    }
+
+    private static int updateWhereIdIn(String metric, String label, String setClause, List<?> values,
+            List<Integer> ids) {
+        return updateWhereIdIn(metric, label, setClause, values, ids, "deleted_at IS NULL");
+    }
+
+    /*
+     * Run UPDATE devices SET <setClause> WHERE <condition> AND id IN (...) for
+     * all ids in one transaction. Ids go in chunks of up to 64: full chunks
+     * share one batched statement, the remainder is padded to a power of two
+     * so the SQL stays cacheable. The call is timed under the metric name.
+     */
+    private static int updateWhereIdIn(String metric, String label, String setClause, List<?> values,
+            List<Integer> ids, String condition) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String prefix = "UPDATE devices SET " + setClause + " WHERE " + condition + " AND id IN (";
+        int full = ids.size() / BULK_CHUNK * BULK_CHUNK;
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connect()) {
+            if (connection == null) {
+                System.out.println(label + " failed: no database connection");
+                return -1;
+            }
+            connection.setAutoCommit(false);
+            boolean committed = false;
+            try {
+                int total = 0;
+                if (full > 0) {
+                    try (PreparedStatement statement = connection
+                            .prepareStatement(prefix + DaoUtils.placeholders(BULK_CHUNK) + ")")) {
+                        for (int start = 0; start < full; start += BULK_CHUNK) {
+                            bindBulk(statement, values, ids, start, BULK_CHUNK, BULK_CHUNK);
+                            statement.addBatch();
+                        }
+                        for (int rows : statement.executeBatch()) {
+                            total += Math.max(rows, 0);
+                        }
+                    }
+                }
+                int rest = ids.size() - full;
+                if (rest > 0) {
+                    int arity = DaoUtils.paddedArity(rest);
+                    try (PreparedStatement statement = connection
+                            .prepareStatement(prefix + DaoUtils.placeholders(arity) + ")")) {
+                        bindBulk(statement, values, ids, full, rest, arity);
+                        total += statement.executeUpdate();
+                    }
+                }
+                connection.commit();
+                committed = true;
+                changed(total);
+                return total;
+            } finally {
+                if (!committed) {
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            MetricsRegistry.error(metric);
+            System.out.println(label + " error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record(metric, System.nanoTime() - startNanos);
+        }
+        return -1;
+    }
+
+    private static void bindBulk(PreparedStatement statement, List<?> values, List<Integer> ids, int start,
+            int count, int arity) throws SQLException {
+        int index = 1;
+        for (Object value : values) {
+            statement.setObject(index++, value);
+        }
+        for (int i = 0; i < arity; i++) {
+            // padding repeats the last id, which doesn't change the IN result
+            statement.setInt(index++, ids.get(start + Math.min(i, count - 1)));
+        }
+    }
+
+    /**
+     * Stream every device to a CSV file whose header matches the import
+     * columns, so an export can be imported again.
+     *
+     * @param file    target file
+     * @param monitor progress and cancel hook
+     * @return rows written, or -1 if cancelled
+     * @throws SQLException if the devices cannot be read
+     * @throws IOException  if the file cannot be written
+     */
+    public static long exportCsv(Path file, ExportMonitor monitor) throws SQLException, IOException {
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connectForRead()) {
+            if (connection == null) {
+                throw new SQLException("no database connection");
+            }
+            long total;
+            try (PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM devices WHERE deleted_at IS NULL");
+                    ResultSet rs = statement.executeQuery()) {
+                total = rs.next() ? rs.getLong(1) : 0;
+            }
+            String sql = "SELECT id,device_number,type,brand,model,status,location,purchase_date,notes,cost FROM devices WHERE deleted_at IS NULL ORDER BY id";
+            String[] header = { "id", "device_number", "type", "brand", "model", "status", "location",
+                    "purchase_date", "notes", "cost" };
+            return CsvExport.write(connection, sql, Collections.emptyList(), header, file, total, monitor);
+        } catch (SQLException | IOException e) {
+            MetricsRegistry.error("DeviceDAO.exportCsv");
+            throw e;
+        } finally {
+            MetricsRegistry.record("DeviceDAO.exportCsv", System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Delete a device by id. The row is only tombstoned (see
+     * {@link #bulkDelete}) and purged later.
      *
      * @param id device id to delete
      * @return true if a row was deleted, false otherwise
      */
     public static boolean delete(int id) {
-        String sql = "DELETE FROM devices WHERE id = ?";
+        String sql = "UPDATE devices SET deleted_at = ? WHERE id = ? AND deleted_at IS NULL";
+        long startNanos = System.nanoTime();
         try (Connection connection = DatabaseConnection.connect();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, id);
-            return statement.executeUpdate() > 0;
+            statement.setLong(1, System.currentTimeMillis());
+            statement.setInt(2, id);
+            return changed(statement.executeUpdate());
         } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.delete");
             System.out.println("Delete device error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("DeviceDAO.delete", System.nanoTime() - startNanos);
         }
         return false;
     }
@@ -84,8 +441,9 @@ public class DeviceDAO {
      * @return Device object or null if not found
      */
     public static Device getById(int id) {
-        String sql = "SELECT * FROM devices WHERE id = ?";
-        try (Connection connection = DatabaseConnection.connect();
+        String sql = "SELECT * FROM devices WHERE id = ? AND deleted_at IS NULL";
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connectForRead();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setInt(1, id);
             try (ResultSet rs = statement.executeQuery()) {
@@ -94,7 +452,10 @@ public class DeviceDAO {
                 }
             }
         } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.getById");
             System.out.println("Get device by id error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("DeviceDAO.getById", System.nanoTime() - startNanos);
         }
         return null;
     }
@@ -106,7 +467,8 @@ public class DeviceDAO {
      * @return true if update succeeded, false otherwise
      */
     public static boolean update(Device d) {
-        String sql = "UPDATE devices SET device_number=?,type=?,brand=?,model=?,status=?,location=?,purchase_date=?,notes=?,cost=? WHERE id=?";
+        String sql = "UPDATE devices SET device_number=?,type=?,brand=?,model=?,status=?,location=?,purchase_date=?,notes=?,cost=? WHERE id=? AND deleted_at IS NULL";
+        long startNanos = System.nanoTime();
         try (Connection connection = DatabaseConnection.connect();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, d.getDeviceNumber());
@@ -119,9 +481,12 @@ public class DeviceDAO {
             statement.setString(8, d.getNotes());
             statement.setDouble(9, d.getCost());
             statement.setInt(10, d.getId());
-            return statement.executeUpdate() > 0;
+            return changed(statement.executeUpdate());
         } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.update");
             System.out.println("Update device error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("DeviceDAO.update", System.nanoTime() - startNanos);
         }
         return false;
     }
@@ -132,37 +497,46 @@ public class DeviceDAO {
      * @return total device count
      */
     public static int countAll() {
-        String sql = "SELECT COUNT(*) FROM devices";
-        try (Connection connection = DatabaseConnection.connect();
+        String sql = "SELECT COUNT(*) FROM devices WHERE deleted_at IS NULL";
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connectForRead();
                 PreparedStatement statement = connection.prepareStatement(sql);
                 ResultSet rs = statement.executeQuery()) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
         } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.countAll");
             System.out.println("Count all devices error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("DeviceDAO.countAll", System.nanoTime() - startNanos);
         }
         return 0;
     }
 
     /**
-     * Count devices matching a single status (case-insensitive).
+     * Count devices matching a single status (case-insensitive, served by the
+     * NOCASE status index).
      *
      * @param status status string to match (null treated as empty)
      * @return count of matching devices
      */
     public static int countByStatus(String status) {
-        String sql = "SELECT COUNT(*) FROM devices WHERE LOWER(status) = ?";
-        try (Connection connection = DatabaseConnection.connect();
+        String sql = "SELECT COUNT(*) FROM devices WHERE status = ? COLLATE NOCASE AND deleted_at IS NULL";
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connectForRead();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, status == null ? "" : status.toLowerCase());
+            statement.setString(1, status == null ? "" : status);
             try (ResultSet rs = statement.executeQuery()) {
                 if (rs.next()) {
                     return rs.getInt(1);
                 }
             }
         } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.countByStatus");
             System.out.println("Count by status error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("DeviceDAO.countByStatus", System.nanoTime() - startNanos);
         }
         return 0;
     }
@@ -176,17 +550,14 @@ public class DeviceDAO {
     public static int countByStatuses(String[] statuses) {
         if (statuses == null || statuses.length == 0)
             return 0;
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < statuses.length; i++) {
-            if (i > 0)
-                sb.append(",");
-            sb.append("?");
-        }
-        String sql = "SELECT COUNT(*) FROM devices WHERE LOWER(status) IN (" + sb.toString() + ")";
-        try (Connection connection = DatabaseConnection.connect();
+        // pad to a bounded set of arities so the statement cache can reuse them
+        int arity = DaoUtils.paddedArity(statuses.length);
+        String sql = "SELECT COUNT(*) FROM devices WHERE status COLLATE NOCASE IN (" + DaoUtils.placeholders(arity) + ") AND deleted_at IS NULL";
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connectForRead();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
-            for (int i = 0; i < statuses.length; i++) {
-                statement.setString(i + 1, statuses[i].toLowerCase());
+            for (int i = 0; i < arity; i++) {
+                statement.setString(i + 1, statuses[Math.min(i, statuses.length - 1)]);
             }
             try (ResultSet rs = statement.executeQuery()) {
                 if (rs.next()) {
@@ -194,8 +565,74 @@ public class DeviceDAO {
                 }
             }
         } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.countByStatuses");
             System.out.println("Count by statuses error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("DeviceDAO.countByStatuses", System.nanoTime() - startNanos);
         }
         return 0;
     }
+
+    /**
+     * Get the device count per status, computed in a single GROUP BY pass over
+     * the status index. The snapshot is cached until the next insert, update or
+     * delete, so repeated dashboard visits don't touch the database.
+     *
+     * @return immutable stats snapshot (empty on error)
+     */
+    public static DeviceStats getStats() {
+        long version;
+        synchronized (STATS_LOCK) {
+            if (cachedStats != null) {
+                return cachedStats;
+            }
+            version = statsVersion;
+        }
+
+        // only cache misses are timed, so the metric shows the cost of the query
+        Map<String, Integer> counts = new HashMap<>();
+        String sql = "SELECT status, COUNT(*) FROM devices WHERE deleted_at IS NULL GROUP BY status COLLATE NOCASE";
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseConnection.connectForRead();
+                PreparedStatement statement = connection.prepareStatement(sql);
+                ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                counts.merge(rs.getString(1) == null ? "" : rs.getString(1), rs.getInt(2), Integer::sum);
+            }
+        } catch (SQLException e) {
+            MetricsRegistry.error("DeviceDAO.getStats");
+            System.out.println("Device stats error: " + e.getMessage());
+            return new DeviceStats(counts);
+        } finally {
+            MetricsRegistry.record("DeviceDAO.getStats", System.nanoTime() - startNanos);
+        }
+
+        DeviceStats stats = new DeviceStats(counts);
+        synchronized (STATS_LOCK) {
+            // don't cache a snapshot that a concurrent write has already invalidated
+            if (version == statsVersion) {
+                cachedStats = stats;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Drop the cached stats snapshot.
+     */
+    static void invalidateStats() {
+        synchronized (STATS_LOCK) {
+            statsVersion++;
+            cachedStats = null;
+        }
+    }
+
+    // Invalidate cached stats when a write touched rows; returns whether it did
+    private static boolean changed(int rowsAffected) {
+        if (rowsAffected > 0) {
+            invalidateStats();
+            return true;
+        }
+        return false;
+    }
 }
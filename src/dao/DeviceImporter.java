@@ -0,0 +1,304 @@
+package dao;
+
+import model.Device;
+import model.DeviceStatus;
+import util.Csv;
+import util.UIHelpers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Imports devices from a CSV file in one transaction.
+ *
+ * The first record is a header naming the columns (any order, case and
+ * spacing ignored): device_number (required), type, brand, model, status,
+ * location, purchase_date, notes, cost. Rows are validated while the file is
+ * streamed into {@link DeviceDAO#insertBatch}; invalid rows are skipped and
+ * reported instead of aborting the import. A row is rejected when its device
+ * number is missing or already used, its status is unknown or its cost is not
+ * a number. A blank status imports as New.
+ *
+ * One summarized action log entry is written per import.
+ */
+public final class DeviceImporter {
+    // rejected rows kept for the report; later ones are only counted
+    private static final int MAX_REPORTED_REJECTIONS = 200;
+
+    private static final String[] COLUMNS = { "device_number", "type", "brand", "model", "status", "location",
+            "purchase_date", "notes", "cost" };
+
+    private DeviceImporter() {
+    }
+
+    /** Outcome of an import. */
+    public static final class ImportResult {
+        private final boolean success;
+        private final int imported;
+        private final int rejectedCount;
+        private final List<String> rejections;
+        private final long elapsedMillis;
+        private final String error;
+
+        ImportResult(boolean success, int imported, int rejectedCount, List<String> rejections, long elapsedMillis,
+                String error) {
+            this.success = success;
+            this.imported = imported;
+            this.rejectedCount = rejectedCount;
+            this.rejections = Collections.unmodifiableList(rejections);
+            this.elapsedMillis = elapsedMillis;
+            this.error = error;
+        }
+
+        /**
+         * @return true if the valid rows were committed
+         */
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * @return number of devices inserted
+         */
+        public int getImported() {
+            return imported;
+        }
+
+        /**
+         * @return number of rejected rows
+         */
+        public int getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * @return "row N: reason" for the first rejected rows
+         */
+        public List<String> getRejections() {
+            return rejections;
+        }
+
+        /**
+         * @return wall time of the import in milliseconds
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return inserted rows per second
+         */
+        public double getRowsPerSecond() {
+            return imported * 1000.0 / Math.max(1, elapsedMillis);
+        }
+
+        /**
+         * @return why the import failed, or null on success
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return one-line summary for dialogs and the action log
+         */
+        public String summary() {
+            if (!success) {
+                return "Import failed: " + error;
+            }
+            return String.format(Locale.ROOT, "Imported %d devices, rejected %d rows in %d ms (%.0f rows/s)",
+                    imported, rejectedCount, elapsedMillis, getRowsPerSecond());
+        }
+    }
+
+    /**
+     * Import devices from a CSV file, then reload the device repository.
+     *
+     * @param file   CSV file to read
+     * @param userId id of the user importing (for the action log), or -1 for
+     *               none
+     * @return what was imported and rejected
+     */
+    public static ImportResult importFile(Path file, int userId) {
+        long start = System.currentTimeMillis();
+        List<String> rejections = new ArrayList<>();
+        int[] rejected = { 0 };
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> header = Csv.readRecord(reader);
+            if (header == null) {
+                return failed(start, "file is empty");
+            }
+            int[] columnIndex = mapHeader(header);
+            if (columnIndex[0] < 0) {
+                return failed(start, "no device_number column in header");
+            }
+            Set<String> knownNumbers = new HashSet<>();
+            for (Device d : DeviceRepository.getInstance().getAll()) {
+                if (d.getDeviceNumber() != null) {
+                    knownNumbers.add(d.getDeviceNumber().trim().toLowerCase(Locale.ROOT));
+                }
+            }
+
+            RowIterator rows = new RowIterator(reader, columnIndex, knownNumbers, reason -> {
+                if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                    rejections.add(reason);
+                }
+                rejected[0]++;
+            });
+            int imported = DeviceDAO.insertBatch(rows);
+            if (imported < 0) {
+                return failed(start, "database error, nothing was imported");
+            }
+            ImportResult result = new ImportResult(true, imported, rejected[0], rejections,
+                    System.currentTimeMillis() - start, null);
+            if (imported > 0) {
+                DeviceRepository.getInstance().reload();
+            }
+            if (userId >= 0) {
+                LogDAO.insertActionLog(userId, result.summary() + " from " + file.getFileName(),
+                        LocalDateTime.now().format(UIHelpers.DEFAULT_DTF));
+            }
+            return result;
+        } catch (IOException | UncheckedIOException e) {
+            return failed(start, e.getMessage());
+        }
+    }
+
+    private static ImportResult failed(long start, String error) {
+        return new ImportResult(false, 0, 0, new ArrayList<>(), System.currentTimeMillis() - start, error);
+    }
+
+    /*
+     * Map each known column to its position in the header, -1 when absent.
+     */
+    private static int[] mapHeader(List<String> header) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT)
+                    .replaceAll("[\\s_-]+", "");
+            positions.putIfAbsent(name, i);
+        }
+        int[] index = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            index[c] = positions.getOrDefault(COLUMNS[c].replace("_", ""), -1);
+        }
+        return index;
+    }
+
+    /*
+     * Reads and validates CSV records lazily, yielding only valid devices, so
+     * the file is streamed straight into the batch insert.
+     */
+    private static final class RowIterator implements Iterator<Device> {
+        private final BufferedReader reader;
+        private final int[] columnIndex;
+        private final Set<String> knownNumbers;
+        private final Consumer<String> onReject;
+        private int row = 1; // header
+        private Device next;
+        private boolean done;
+
+        RowIterator(BufferedReader reader, int[] columnIndex, Set<String> knownNumbers,
+                Consumer<String> onReject) {
+            this.reader = reader;
+            this.columnIndex = columnIndex;
+            this.knownNumbers = knownNumbers;
+            this.onReject = onReject;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !done) {
+                List<String> record;
+                try {
+                    record = Csv.readRecord(reader);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                row++;
+                if (record == null) {
+                    done = true;
+                } else if (!(record.size() == 1 && record.get(0).trim().isEmpty())) {
+                    next = toDevice(record);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Device next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Device d = next;
+            next = null;
+            return d;
+        }
+
+        private Device toDevice(List<String> record) {
+            String number = field(record, 0);
+            if (number.isEmpty()) {
+                return reject("missing device number");
+            }
+            if (!knownNumbers.add(number.toLowerCase(Locale.ROOT))) {
+                return reject("duplicate device number " + number);
+            }
+            String statusText = field(record, 4);
+            DeviceStatus status = statusText.isEmpty() ? DeviceStatus.NEW : DeviceStatus.parse(statusText);
+            if (status == null) {
+                knownNumbers.remove(number.toLowerCase(Locale.ROOT));
+                return reject("unknown status " + statusText);
+            }
+            double cost = 0;
+            String costText = field(record, 8);
+            if (!costText.isEmpty()) {
+                try {
+                    cost = Double.parseDouble(costText);
+                } catch (NumberFormatException e) {
+                    cost = Double.NaN;
+                }
+                if (Double.isNaN(cost) || Double.isInfinite(cost)) {
+                    knownNumbers.remove(number.toLowerCase(Locale.ROOT));
+                    return reject("invalid cost " + costText);
+                }
+            }
+            Device d = new Device();
+            d.setDeviceNumber(number);
+            d.setType(field(record, 1));
+            d.setBrand(field(record, 2));
+            d.setModel(field(record, 3));
+            d.setStatus(status.getLabel());
+            d.setLocation(field(record, 5));
+            d.setPurchaseDate(field(record, 6));
+            d.setNotes(field(record, 7));
+            d.setCost(cost);
+            return d;
+        }
+
+        private String field(List<String> record, int column) {
+            int i = columnIndex[column];
+            return i >= 0 && i < record.size() ? record.get(i).trim() : "";
+        }
+
+        private Device reject(String reason) {
+            onReject.accept("row " + row + ": " + reason);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package dao;
+
+import model.Device;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory view of the devices table with write-through to SQLite.
+ *
+ * The table is read once, on first use, into an id-ordered map; after that
+ * {@link #getAll()}, {@link #getById(int)} and {@link #getStats()} are served
+ * from memory. Writes go to the database first through {@link DeviceDAO} and
+ * are applied to the cache only if they succeed, then listeners are notified.
+ *
+ * Callers always receive copies, so editing a returned Device does not change
+ * the cache until it is saved with {@link #update(Device)}. A
+ * {@link DeviceSearchIndex} over all device fields is kept in step with the
+ * cache for {@link #search(String)}.
+ */
+public final class DeviceRepository {
+    private static final DeviceRepository INSTANCE = new DeviceRepository();
+
+    private final ConcurrentSkipListMap<Integer, Device> devices = new ConcurrentSkipListMap<>();
+    private final DeviceSearchIndex searchIndex = new DeviceSearchIndex();
+    private final List<DeviceChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object writeLock = new Object();
+    private volatile boolean loaded;
+    // status counts, dropped whenever a device changes
+    private final Object statsLock = new Object();
+    private DeviceStats stats; // guarded by statsLock
+    private long statsVersion; // guarded by statsLock
+
+    private DeviceRepository() {
+    }
+
+    /**
+     * Get the shared repository.
+     *
+     * @return application-wide device repository
+     */
+    public static DeviceRepository getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get all devices ordered by id, loading the table on first use.
+     *
+     * @return list of device copies
+     */
+    public List<Device> getAll() {
+        ensureLoaded();
+        List<Device> result = new ArrayList<>(devices.size());
+        for (Device d : devices.values()) {
+            result.add(new Device(d));
+        }
+        return result;
+    }
+
+    /**
+     * Get a device by id.
+     *
+     * @param id device id
+     * @return a copy of the device, or null if not found
+     */
+    public Device getById(int id) {
+        ensureLoaded();
+        Device d = devices.get(id);
+        return d == null ? null : new Device(d);
+    }
+
+    /**
+     * Find devices whose fields contain every term of the query
+     * (case-insensitive).
+     *
+     * @param query search text; blank matches every device
+     * @return ids of the matching devices
+     */
+    public BitSet search(String query) {
+        ensureLoaded();
+        return searchIndex.search(query);
+    }
+
+    /**
+     * Narrow a previous search result to the devices matching a query that
+     * extends the previous one.
+     *
+     * @param query  search text
+     * @param within ids matched by the previous query
+     * @return ids of the matching devices
+     */
+    public BitSet search(String query, BitSet within) {
+        ensureLoaded();
+        return searchIndex.search(query, within);
+    }
+
+    /**
+     * Get the device count per status. Computed from memory once the table is
+     * loaded; before that the cached single-query snapshot from
+     * {@link DeviceDAO#getStats()} is used so the dashboard doesn't force a
+     * full table read.
+     *
+     * @return stats snapshot
+     */
+    public DeviceStats getStats() {
+        if (!loaded) {
+            return DeviceDAO.getStats();
+        }
+        long version;
+        synchronized (statsLock) {
+            if (stats != null) {
+                return stats;
+            }
+            version = statsVersion;
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        for (Device d : devices.values()) {
+            counts.merge(d.getStatus() == null ? "" : d.getStatus(), 1, Integer::sum);
+        }
+        DeviceStats snapshot = new DeviceStats(counts);
+        synchronized (statsLock) {
+            // don't cache counts that a concurrent write has already invalidated
+            if (version == statsVersion) {
+                stats = snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Insert a device. On success {@code d} receives its new id.
+     *
+     * @param d device to insert
+     * @return true if the insert succeeded
+     */
+    public boolean insert(Device d) {
+        ensureLoaded();
+        synchronized (writeLock) {
+            if (!DeviceDAO.insert(d)) {
+                return false;
+            }
+            apply(DeviceChangeEvent.Type.INSERTED, new Device(d));
+        }
+        return true;
+    }
+
+    /**
+     * Update a device.
+     *
+     * @param d device with id set and updated fields
+     * @return true if the update succeeded
+     */
+    public boolean update(Device d) {
+        ensureLoaded();
+        synchronized (writeLock) {
+            if (!DeviceDAO.update(d)) {
+                return false;
+            }
+            apply(DeviceChangeEvent.Type.UPDATED, new Device(d));
+        }
+        return true;
+    }
+
+    /**
+     * Set status, location and/or notes on many devices in one transaction
+     * (see {@link DeviceDAO#bulkUpdate}). Listeners get a single UPDATED event
+     * listing every changed device.
+     *
+     * @param ids      ids of the devices to change
+     * @param status   new status, or null to leave unchanged
+     * @param location new location, or null to leave unchanged
+     * @param notes    new notes, or null to leave unchanged
+     * @return number of devices updated, or -1 if nothing was changed because
+     *         the update failed
+     */
+    public int bulkUpdate(List<Integer> ids, String status, String location, String notes) {
+        ensureLoaded();
+        List<Device> changed = new ArrayList<>();
+        int rows;
+        synchronized (writeLock) {
+            rows = DeviceDAO.bulkUpdate(ids, status, location, notes);
+            if (rows <= 0) {
+                return rows;
+            }
+            for (int id : ids) {
+                Device cached = devices.get(id);
+                if (cached == null) {
+                    continue;
+                }
+                Device d = new Device(cached);
+                if (status != null) {
+                    d.setStatus(status);
+                }
+                if (location != null) {
+                    d.setLocation(location);
+                }
+                if (notes != null) {
+                    d.setNotes(notes);
+                }
+                devices.put(id, d);
+                searchIndex.put(d);
+                changed.add(new Device(d));
+            }
+            invalidateStats();
+            fire(new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, changed));
+        }
+        return rows;
+    }
+
+    /**
+     * Soft-delete many devices in one transaction (see
+     * {@link DeviceDAO#bulkDelete}). Listeners get a single DELETED event.
+     *
+     * @param ids ids of the devices to delete
+     * @return number of devices deleted, or -1 if the delete failed
+     */
+    public int bulkDelete(List<Integer> ids) {
+        ensureLoaded();
+        int rows;
+        synchronized (writeLock) {
+            rows = DeviceDAO.bulkDelete(ids);
+            if (rows <= 0) {
+                return rows;
+            }
+            List<Device> removed = new ArrayList<>();
+            for (int id : ids) {
+                Device d = devices.remove(id);
+                if (d != null) {
+                    searchIndex.remove(id);
+                    removed.add(d);
+                }
+            }
+            invalidateStats();
+            fire(new DeviceChangeEvent(DeviceChangeEvent.Type.DELETED, removed));
+        }
+        return rows;
+    }
+
+    /**
+     * Undo a delete of devices that have not been purged yet. Listeners get a
+     * single INSERTED event with the restored devices.
+     *
+     * @param ids ids of deleted devices
+     * @return number of devices restored, or -1 on error
+     */
+    public int restore(List<Integer> ids) {
+        ensureLoaded();
+        int rows;
+        synchronized (writeLock) {
+            rows = DeviceDAO.restore(ids);
+            if (rows <= 0) {
+                return rows;
+            }
+            List<Device> restored = DeviceDAO.getByIds(ids);
+            for (Device d : restored) {
+                devices.put(d.getId(), d);
+                searchIndex.put(d);
+            }
+            invalidateStats();
+            List<Device> copies = new ArrayList<>(restored.size());
+            for (Device d : restored) {
+                copies.add(new Device(d));
+            }
+            fire(new DeviceChangeEvent(DeviceChangeEvent.Type.INSERTED, copies));
+        }
+        return rows;
+    }
+
+    /**
+     * Delete a device.
+     *
+     * @param id id of the device to delete
+     * @return true if the delete succeeded
+     */
+    public boolean delete(int id) {
+        ensureLoaded();
+        synchronized (writeLock) {
+            if (!DeviceDAO.delete(id)) {
+                return false;
+            }
+            Device removed = devices.get(id);
+            if (removed == null) {
+                removed = new Device();
+                removed.setId(id);
+            }
+            apply(DeviceChangeEvent.Type.DELETED, removed);
+        }
+        return true;
+    }
+
+    /**
+     * Re-read the whole table, e.g. after a bulk change made outside the
+     * repository, and notify listeners with a RELOADED event.
+     */
+    public void reload() {
+        synchronized (writeLock) {
+            load(); // on failure the devices already cached are kept
+        }
+        fire(new DeviceChangeEvent(DeviceChangeEvent.Type.RELOADED, Collections.emptyList()));
+    }
+
+    /**
+     * Subscribe to change events.
+     *
+     * @param listener listener to add
+     */
+    public void addListener(DeviceChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unsubscribe from change events.
+     *
+     * @param listener listener to remove
+     */
+    public void removeListener(DeviceChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (!loaded) {
+                load();
+            }
+        }
+    }
+
+    // a failed read leaves the cache as it was and not loaded, so the next call tries again
+    private void load() {
+        Map<Integer, Device> fresh = new HashMap<>();
+        try {
+            for (Device d : DeviceDAO.readAll()) {
+                fresh.put(d.getId(), d);
+            }
+        } catch (SQLException e) {
+            System.out.println("Device load error: " + e.getMessage());
+            return;
+        }
+        devices.clear();
+        devices.putAll(fresh);
+        searchIndex.clear();
+        for (Device d : fresh.values()) {
+            searchIndex.put(d);
+        }
+        invalidateStats();
+        loaded = true;
+    }
+
+    private void invalidateStats() {
+        synchronized (statsLock) {
+            statsVersion++;
+            stats = null;
+        }
+    }
+
+    private void apply(DeviceChangeEvent.Type type, Device device) {
+        if (type == DeviceChangeEvent.Type.DELETED) {
+            devices.remove(device.getId());
+            searchIndex.remove(device.getId());
+        } else {
+            devices.put(device.getId(), device);
+            searchIndex.put(device);
+        }
+        invalidateStats();
+        fire(new DeviceChangeEvent(type, Collections.singletonList(new Device(device))));
+    }
+
+    private void fire(DeviceChangeEvent event) {
+        for (DeviceChangeListener listener : listeners) {
+            try {
+                listener.devicesChanged(event);
+            } catch (RuntimeException e) {
+                System.out.println("Device change listener error: " + e.getMessage());
+            }
+        }
+    }
+}
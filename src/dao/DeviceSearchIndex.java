@@ -0,0 +1,323 @@
+package dao;
+
+import model.Device;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * In-memory substring index over every text field of a device.
+ *
+ * Each device's fields are lowercased and split into all 1, 2 and 3 character
+ * grams; each gram maps to the ids of the devices containing it. A search term
+ * of up to three characters is answered straight from its gram. Longer terms
+ * intersect the sets of their trigrams and then confirm the few candidates
+ * with a plain substring check, so no row is ever scanned with a regex.
+ *
+ * Most grams occur in only a few devices, so their ids are kept as a sorted
+ * {@code int[]}; a gram switches to a bitmap only once it is common enough
+ * that the bitmap is the smaller of the two. Memory therefore follows the
+ * number of (gram, device) pairs rather than distinct grams times the highest
+ * id.
+ *
+ * Several whitespace-separated terms must all match (in any field). When a
+ * query only extends an earlier one, {@link #search(String, BitSet)} can narrow
+ * the earlier result instead of starting over. The index is owned and kept in
+ * sync by {@link DeviceRepository}.
+ */
+public final class DeviceSearchIndex {
+    private static final int MAX_GRAM = 3;
+    // below this many previous matches, re-checking them beats the index
+    private static final int NARROW_SCAN_LIMIT = 512;
+    // separates fields so grams and substrings never span two fields
+    private static final char FIELD_SEPARATOR = '\u0001';
+
+    private final Map<Integer, String> documents = new HashMap<>();
+    private final Map<String, Postings> grams = new HashMap<>();
+
+    /**
+     * Add or replace a device in the index.
+     *
+     * @param d device to index
+     */
+    public synchronized void put(Device d) {
+        remove(d.getId());
+        String text = documentOf(d);
+        documents.put(d.getId(), text);
+        forEachGram(text, gram -> grams.computeIfAbsent(gram, k -> new Postings()).add(d.getId()));
+    }
+
+    /**
+     * Remove a device from the index.
+     *
+     * @param id device id
+     */
+    public synchronized void remove(int id) {
+        String text = documents.remove(id);
+        if (text == null) {
+            return;
+        }
+        forEachGram(text, gram -> {
+            Postings ids = grams.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop every device from the index.
+     */
+    public synchronized void clear() {
+        documents.clear();
+        grams.clear();
+    }
+
+    /**
+     * Find the devices matching every term of a query (case-insensitive
+     * substring match against any field).
+     *
+     * @param query search text; blank matches every device
+     * @return ids of the matching devices (a new set owned by the caller)
+     */
+    public synchronized BitSet search(String query) {
+        return search(query, null);
+    }
+
+    /**
+     * Like {@link #search(String)}, restricted to a previous result. Only valid
+     * when every device matching {@code query} is also in {@code within}, e.g.
+     * when the query extends the one that produced {@code within}.
+     *
+     * @param query  search text; blank matches every device
+     * @param within ids to narrow, or null to search everything
+     * @return ids of the matching devices (a new set owned by the caller)
+     */
+    public synchronized BitSet search(String query, BitSet within) {
+        String[] terms = normalize(query).split(" ");
+        if (within != null && within.cardinality() <= NARROW_SCAN_LIMIT) {
+            return filter(within, terms);
+        }
+        BitSet result = null;
+        for (String term : terms) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            BitSet matches = searchTerm(term);
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        if (result == null) {
+            result = new BitSet();
+            for (int id : documents.keySet()) {
+                result.set(id);
+            }
+        }
+        if (within != null) {
+            result.and(within);
+        }
+        return result;
+    }
+
+    /**
+     * Normalize a query the way the index compares it: lowercase, trimmed,
+     * single spaces between terms.
+     *
+     * @param query raw search text
+     * @return normalized query
+     */
+    public static String normalize(String query) {
+        return query == null ? "" : query.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    private BitSet filter(BitSet within, String[] terms) {
+        BitSet result = new BitSet();
+        for (int id = within.nextSetBit(0); id >= 0; id = within.nextSetBit(id + 1)) {
+            String text = documents.get(id);
+            if (text != null && containsAll(text, terms)) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsAll(String text, String[] terms) {
+        for (String term : terms) {
+            if (!text.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return number of indexed devices
+     */
+    public synchronized int size() {
+        return documents.size();
+    }
+
+    private BitSet searchTerm(String term) {
+        if (term.length() <= MAX_GRAM) {
+            Postings ids = grams.get(term);
+            return ids == null ? new BitSet() : ids.toBitSet();
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + MAX_GRAM <= term.length(); i++) {
+            Postings ids = grams.get(term.substring(i, i + MAX_GRAM));
+            if (ids == null) {
+                return new BitSet();
+            }
+            lists.add(ids);
+        }
+        // start from the rarest trigram so the candidate set is small from the outset
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        BitSet candidates = lists.get(0).toBitSet();
+        for (int i = 1; i < lists.size() && !candidates.isEmpty(); i++) {
+            lists.get(i).retainIn(candidates);
+        }
+        // trigrams can all be present without the whole term being present
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            if (!documents.get(id).contains(term)) {
+                candidates.clear(id);
+            }
+        }
+        return candidates;
+    }
+
+    private static void forEachGram(String text, Consumer<String> action) {
+        for (int start = 0; start < text.length(); start++) {
+            for (int len = 1; len <= MAX_GRAM && start + len <= text.length(); len++) {
+                if (text.charAt(start + len - 1) == FIELD_SEPARATOR) {
+                    break;
+                }
+                action.accept(text.substring(start, start + len));
+            }
+        }
+    }
+
+    private static String documentOf(Device d) {
+        StringBuilder sb = new StringBuilder();
+        String[] fields = { d.getDeviceNumber(), d.getType(), d.getBrand(), d.getModel(), d.getStatus(),
+                d.getLocation(), d.getPurchaseDate(), d.getNotes(), String.valueOf(d.getCost()) };
+        for (String field : fields) {
+            if (field != null && !field.isEmpty()) {
+                sb.append(field.toLowerCase(Locale.ROOT)).append(FIELD_SEPARATOR);
+            }
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Ids of the devices containing one gram: a sorted int[] while the gram is
+     * rare, a BitSet once it is in more than 1 of every 32 ids (where the
+     * bitmap becomes smaller), and back again when it thins out.
+     */
+    private static final class Postings {
+        private static final int MIN_DENSE = 64;
+
+        private int[] ids = new int[2];
+        private int size;
+        private BitSet dense;
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(int id) {
+            if (dense != null) {
+                if (!dense.get(id)) {
+                    dense.set(id);
+                    size++;
+                }
+                return;
+            }
+            // ids mostly arrive in increasing order, so try the end first
+            int at = size > 0 && ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -(at + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+            if (size >= MIN_DENSE && size > (ids[size - 1] >> 5)) {
+                dense = new BitSet(ids[size - 1] + 1);
+                for (int i = 0; i < size; i++) {
+                    dense.set(ids[i]);
+                }
+                ids = null;
+            }
+        }
+
+        void remove(int id) {
+            if (dense != null) {
+                if (dense.get(id)) {
+                    dense.clear(id);
+                    size--;
+                    if (size < (dense.length() >> 6)) {
+                        ids = new int[Math.max(2, size)];
+                        int i = 0;
+                        for (int next = dense.nextSetBit(0); next >= 0; next = dense.nextSetBit(next + 1)) {
+                            ids[i++] = next;
+                        }
+                        dense = null;
+                    }
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+
+        // a new set owned by the caller
+        BitSet toBitSet() {
+            if (dense != null) {
+                return (BitSet) dense.clone();
+            }
+            BitSet result = new BitSet(size == 0 ? 0 : ids[size - 1] + 1);
+            for (int i = 0; i < size; i++) {
+                result.set(ids[i]);
+            }
+            return result;
+        }
+
+        // clear the ids in candidates that this gram does not contain
+        void retainIn(BitSet candidates) {
+            if (dense != null) {
+                candidates.and(dense);
+                return;
+            }
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                if (Arrays.binarySearch(ids, 0, size, id) < 0) {
+                    candidates.clear(id);
+                }
+            }
+        }
+    }
+}
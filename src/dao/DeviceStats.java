@@ -0,0 +1,86 @@
+package dao;
+
+import model.DeviceStatus;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of device counts: the total and the count per status.
+ * Status keys are compared case-insensitively.
+ */
+public final class DeviceStats {
+    private final int total;
+    private final Map<String, Integer> byStatus;
+
+    /**
+     * Create a snapshot.
+     *
+     * @param byStatus device count per status; keys are lowercased here
+     */
+    public DeviceStats(Map<String, Integer> byStatus) {
+        Map<String, Integer> copy = new HashMap<>();
+        int sum = 0;
+        for (Map.Entry<String, Integer> e : byStatus.entrySet()) {
+            String key = e.getKey() == null ? "" : e.getKey().toLowerCase();
+            copy.merge(key, e.getValue(), Integer::sum);
+            sum += e.getValue();
+        }
+        this.byStatus = Collections.unmodifiableMap(copy);
+        this.total = sum;
+    }
+
+    /**
+     * Get the total number of devices.
+     *
+     * @return total device count
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Get the number of devices with any of the given statuses.
+     *
+     * @param statuses status names (case-insensitive)
+     * @return combined count
+     */
+    public int count(String... statuses) {
+        int sum = 0;
+        for (String status : statuses) {
+            sum += byStatus.getOrDefault(status == null ? "" : status.toLowerCase(), 0);
+        }
+        return sum;
+    }
+
+    /**
+     * Get the number of devices with any of the given statuses, counting every
+     * spelling of a status (e.g. "In Use" and "in-use") together.
+     *
+     * @param statuses statuses to count
+     * @return combined count
+     */
+    public int count(DeviceStatus... statuses) {
+        int sum = 0;
+        for (Map.Entry<String, Integer> e : byStatus.entrySet()) {
+            DeviceStatus status = DeviceStatus.parse(e.getKey());
+            for (DeviceStatus wanted : statuses) {
+                if (status == wanted) {
+                    sum += e.getValue();
+                    break;
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Get every status bucket.
+     *
+     * @return unmodifiable map of lowercase status to count
+     */
+    public Map<String, Integer> getByStatus() {
+        return byStatus;
+    }
+}
@@ -0,0 +1,21 @@
+package dao;
+
+/**
+ * Receives progress from a streaming export and can stop it. Called on the
+ * exporting thread.
+ */
+public interface ExportMonitor {
+    /**
+     * Report how far the export has got.
+     *
+     * @param rowsWritten rows written so far
+     * @param totalRows   rows expected in total (may be off if rows change
+     *                    while exporting)
+     */
+    void progress(long rowsWritten, long totalRows);
+
+    /**
+     * @return true to stop the export; the partial file is deleted
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,219 @@
+package dao;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background archival of old login and action logs.
+ *
+ * Every {@code clims.logs.intervalSec} seconds this task moves log rows older
+ * than {@code clims.logs.retentionDays} days, and rows beyond the newest
+ * {@code clims.logs.maxRows} per table, from
+ * the hot tables to the same tables in the attached archive database. Rows
+ * move oldest first in short transactions of at most
+ * {@code clims.logs.batchSize} rows with a pause between them, so archiving
+ * never holds the writer connection long enough to stall interactive saves.
+ *
+ * Archiving is opt-in: both settings default to 0 (keep every row in the hot
+ * tables) and the task does not start unless one is set. Once it runs,
+ * reports read only the hot tables unless their date filter reaches back
+ * past the newest archived row, or rows of their table are being moved right
+ * now; see {@link #reaches}. Exports always read the archive as well.
+ */
+public final class LogArchiver {
+    private static final long INTERVAL_SEC = Math.max(1, Long.getLong("clims.logs.intervalSec", 3600L));
+    private static final long RETENTION_MS = TimeUnit.DAYS
+            .toMillis(Math.max(0, Long.getLong("clims.logs.retentionDays", 0L)));
+    private static final int MAX_ROWS = Math.max(0, Integer.getInteger("clims.logs.maxRows", 0));
+    private static final int BATCH_SIZE = Math.max(1, Integer.getInteger("clims.logs.batchSize", 1000));
+    private static final long PAUSE_MS = Math.max(0, Long.getLong("clims.logs.pauseMs", 100L));
+    private static final long INITIAL_DELAY_SEC = 90;
+
+    private static final LogArchiver INSTANCE = new LogArchiver();
+
+    private ScheduledExecutorService scheduler; // guarded by this
+    // newest archived timestamp per table; absent when that archive is empty
+    private final Map<LogQuery.Kind, Long> archiveNewest = new EnumMap<>(LogQuery.Kind.class);
+    private volatile boolean horizonKnown;
+    // runs currently moving rows of each table; the horizon lags behind them
+    private final Map<LogQuery.Kind, AtomicInteger> moving = new EnumMap<>(LogQuery.Kind.class);
+    private final AtomicLong archived = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+
+    private LogArchiver() {
+        for (LogQuery.Kind kind : LogQuery.Kind.values()) {
+            moving.put(kind, new AtomicInteger());
+        }
+    }
+
+    /**
+     * Get the shared archiver.
+     *
+     * @return application-wide archiver
+     */
+    public static LogArchiver getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start the periodic archival on a daemon thread. Does nothing if already
+     * started or if neither a retention period nor a row cap is configured.
+     */
+    public synchronized void start() {
+        if (scheduler != null || (RETENTION_MS == 0 && MAX_ROWS == 0)) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "clims-log-archiver");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, INITIAL_DELAY_SEC, INTERVAL_SEC, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the periodic archival, interrupting a run in progress between
+     * batches.
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Archive every log row past the retention period or row cap now, batch
+     * by batch, on the calling thread.
+     *
+     * @return number of rows moved
+     */
+    public long archiveNow() {
+        long cutoffMillis = RETENTION_MS > 0 ? System.currentTimeMillis() - RETENTION_MS : Long.MIN_VALUE;
+        return archive(cutoffMillis, MAX_ROWS);
+    }
+
+    /**
+     * Archive log rows stamped before a cutoff, or beyond a row cap, batch by
+     * batch, on the calling thread.
+     *
+     * @param cutoffMillis epoch millis; older rows are archived
+     *                     (Long.MIN_VALUE for none)
+     * @param maxRows      rows to keep per hot table (0 for no cap)
+     * @return number of rows moved
+     */
+    public long archive(long cutoffMillis, int maxRows) {
+        runs.incrementAndGet();
+        long total = 0;
+        for (LogQuery.Kind kind : LogQuery.Kind.values()) {
+            long cutoffId = maxRows > 0 ? LogDAO.rowCapCutoffId(kind, maxRows) : -1;
+            long moved = 0;
+            // reports read the archive too until the horizon covers what this run moved
+            moving.get(kind).incrementAndGet();
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    int rows = LogDAO.archiveBatch(kind, cutoffMillis, cutoffId, BATCH_SIZE);
+                    if (rows <= 0) {
+                        break;
+                    }
+                    moved += rows;
+                    archived.addAndGet(rows);
+                    if (rows < BATCH_SIZE) {
+                        break;
+                    }
+                    try {
+                        // let queued writes (saves, audit logs) take the writer between batches
+                        Thread.sleep(PAUSE_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (moved > 0) {
+                    refreshHorizon(kind);
+                }
+            } finally {
+                moving.get(kind).decrementAndGet();
+            }
+            total += moved;
+        }
+        if (!horizonKnown) {
+            refreshHorizon();
+        }
+        return total;
+    }
+
+    /**
+     * Whether a log query starting at a given time can match archived rows.
+     * Always true while rows of the table are being archived, since the
+     * horizon is only refreshed once they have all moved.
+     *
+     * @param kind       log table
+     * @param fromMillis earliest timestamp the query matches, or null when it
+     *                   may match any date
+     * @return true if the archive must be read too
+     */
+    public boolean reaches(LogQuery.Kind kind, Long fromMillis) {
+        if (moving.get(kind).get() > 0) {
+            return true;
+        }
+        if (!horizonKnown) {
+            refreshHorizon();
+        }
+        Long newest;
+        synchronized (archiveNewest) {
+            newest = archiveNewest.get(kind);
+        }
+        return newest != null && (fromMillis == null || fromMillis <= newest);
+    }
+
+    /**
+     * @return log rows archived since startup
+     */
+    public long getArchivedCount() {
+        return archived.get();
+    }
+
+    /**
+     * @return one-line summary of archive activity
+     */
+    public String describeStats() {
+        return "runs=" + runs.get() + " archived=" + archived.get();
+    }
+
+    private void refreshHorizon() {
+        synchronized (archiveNewest) {
+            for (LogQuery.Kind kind : LogQuery.Kind.values()) {
+                refreshHorizon(kind);
+            }
+            horizonKnown = true;
+        }
+    }
+
+    private void refreshHorizon(LogQuery.Kind kind) {
+        synchronized (archiveNewest) {
+            Long newest = LogDAO.newestArchivedMillis(kind);
+            if (newest == null) {
+                archiveNewest.remove(kind);
+            } else {
+                archiveNewest.put(kind, newest);
+            }
+        }
+    }
+
+    private void runSafely() {
+        try {
+            long moved = archiveNow();
+            if (moved > 0) {
+                System.out.println("Archived " + moved + " log rows");
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Log archive error: " + e.getMessage());
+        }
+    }
+}
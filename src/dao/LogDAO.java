@@ -1,12 +1,22 @@
 package dao;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
+import util.DateTimes;
+import util.MetricsRegistry;
+
 public class LogDAO {
+    private static final String INSERT_LOGIN_SQL = "INSERT INTO login_logs (user_id,action_type,timestamp,timestamp_ms) VALUES (?,?,?,?)";
+    private static final String INSERT_ACTION_SQL = "INSERT INTO action_logs (user_id,action_description,timestamp,timestamp_ms) VALUES (?,?,?,?)";
+
     /**
-     * Insert a record into the `login_logs` table.
+     * Insert a record into the `login_logs` table. The row is queued on the
+     * {@link AuditLogWriter} and written in the background, so this returns
+     * without touching the database.
      *
      * @param userId     the id of the user performing the login/logout action
      * @param actionType a short text describing the action (e.g. "LOGIN", "LOGOUT")
@@ -14,46 +24,86 @@ public class LogDAO {
      *                   date/time)
      */
     public static void insertLoginLog(int userId, String actionType, String timestamp) {
-        String sql = "INSERT INTO login_logs (user_id,action_type,timestamp) VALUES (?,?,?)";
-        try (java.sql.Connection connection = database.DatabaseConnection.connect()) {
-            if (connection == null) {
-                System.out.println("Insert login log failed: no database connection");
-                return;
-            }
-            try (java.sql.PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setInt(1, userId);
-                ps.setString(2, actionType);
-                ps.setString(3, timestamp);
-                ps.executeUpdate();
-            }
-        } catch (SQLException e) {
-            System.out.println("Insert login log error: " + e.getMessage());
+        long startNanos = System.nanoTime();
+        try {
+            AuditLogWriter.getInstance()
+                    .submit(new AuditLogWriter.Entry(AuditLogWriter.Kind.LOGIN, userId, actionType, timestamp));
+        } finally {
+            MetricsRegistry.record("LogDAO.insertLoginLog", System.nanoTime() - startNanos);
         }
     }
 
     /**
-     * Insert a record into the `action_logs` table describing a user action.
+     * Insert a record into the `action_logs` table describing a user action. The
+     * row is queued on the {@link AuditLogWriter} and written in the background.
      *
      * @param userId    the id of the user that performed the action
      * @param desc      a short description of the action performed
      * @param timestamp the timestamp string to store (expected formatted date/time)
      */
     public static void insertActionLog(int userId, String desc, String timestamp) {
-        String sql = "INSERT INTO action_logs (user_id,action_description,timestamp) VALUES (?,?,?)";
+        long startNanos = System.nanoTime();
+        try {
+            AuditLogWriter.getInstance()
+                    .submit(new AuditLogWriter.Entry(AuditLogWriter.Kind.ACTION, userId, desc, timestamp));
+        } finally {
+            MetricsRegistry.record("LogDAO.insertActionLog", System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Write a batch of queued log rows in a single transaction using batched
+     * inserts. Called by the {@link AuditLogWriter}.
+     *
+     * @param entries rows to write
+     * @return true if the whole batch was committed
+     */
+    static boolean writeBatch(List<AuditLogWriter.Entry> entries) {
+        long startNanos = System.nanoTime();
         try (java.sql.Connection connection = database.DatabaseConnection.connect()) {
             if (connection == null) {
-                System.out.println("Insert action log failed: no database connection");
-                return;
+                System.out.println("Insert log batch failed: no database connection");
+                return false;
             }
-            try (java.sql.PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setInt(1, userId);
-                ps.setString(2, desc);
-                ps.setString(3, timestamp);
-                ps.executeUpdate();
+            connection.setAutoCommit(false);
+            try (java.sql.PreparedStatement loginPs = connection.prepareStatement(INSERT_LOGIN_SQL);
+                    java.sql.PreparedStatement actionPs = connection.prepareStatement(INSERT_ACTION_SQL)) {
+                int logins = 0;
+                int actions = 0;
+                for (AuditLogWriter.Entry entry : entries) {
+                    java.sql.PreparedStatement ps = entry.kind == AuditLogWriter.Kind.LOGIN ? loginPs : actionPs;
+                    ps.setInt(1, entry.userId);
+                    ps.setString(2, entry.text);
+                    ps.setString(3, entry.timestamp);
+                    ps.setLong(4, entry.timestampMillis);
+                    ps.addBatch();
+                    if (entry.kind == AuditLogWriter.Kind.LOGIN) {
+                        logins++;
+                    } else {
+                        actions++;
+                    }
+                }
+                if (logins > 0) {
+                    loginPs.executeBatch();
+                }
+                if (actions > 0) {
+                    actionPs.executeBatch();
+                }
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
         } catch (SQLException e) {
-            System.out.println("Insert action log error: " + e.getMessage());
+            MetricsRegistry.error("LogDAO.writeBatch");
+            System.out.println("Insert log batch error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("LogDAO.writeBatch", System.nanoTime() - startNanos);
         }
+        return false;
     }
 
     /**
@@ -65,7 +115,8 @@ public class LogDAO {
     public static List<String[]> getLoginLogs() {
         List<String[]> list = new ArrayList<>();
         String sql = "SELECT l.id, u.username, l.action_type, l.timestamp FROM login_logs l LEFT JOIN users u ON l.user_id = u.id ORDER BY l.id DESC";
-        try (java.sql.Connection connection = database.DatabaseConnection.connect()) {
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead()) {
             if (connection == null) {
                 System.out.println("Fetch login logs failed: no database connection");
                 return list;
@@ -77,44 +128,27 @@ public class LogDAO {
                 }
             }
         } catch (SQLException e) {
+            MetricsRegistry.error("LogDAO.getLoginLogs");
             System.out.println("Fetch login logs error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("LogDAO.getLoginLogs", System.nanoTime() - startNanos);
         }
         return list;
     }
 
-    /**
-     * Get login logs where timestamp starts with the provided date prefix (format
-     * MM/dd/yyyy)
-     */
     /**
      * Fetch login logs where the timestamp starts with the given date prefix.
      * Commonly used to filter logs by a specific day (prefix format like
-     * "MM/dd/yyyy").
+     * "MM/dd/yyyy"). A complete date is served by an index range seek on
+     * {@code timestamp_ms}; partial prefixes fall back to a text match.
      *
      * @param datePrefix a date string prefix to match on the timestamp column
      * @return a list of String[] rows where each row contains (id, username,
      *         action_type, timestamp)
      */
     public static List<String[]> getLoginLogsByDatePrefix(String datePrefix) {
-        List<String[]> list = new ArrayList<>();
-        String sql = "SELECT l.id, u.username, l.action_type, l.timestamp FROM login_logs l LEFT JOIN users u ON l.user_id = u.id WHERE l.timestamp LIKE ? ORDER BY l.id DESC";
-        try (java.sql.Connection connection = database.DatabaseConnection.connect()) {
-            if (connection == null) {
-                System.out.println("Fetch login logs by date failed: no database connection");
-                return list;
-            }
-            try (java.sql.PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setString(1, datePrefix + "%");
-                try (java.sql.ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        list.add(DaoUtils.rowToArray(rs, 4));
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.out.println("Fetch login logs by date error: " + e.getMessage());
-        }
-        return list;
+        return fetchByDatePrefix("LogDAO.getLoginLogsByDatePrefix", "login logs", "SELECT l.id, u.username, l.action_type, l.timestamp FROM login_logs l LEFT JOIN users u ON l.user_id = u.id",
+                "l", datePrefix);
     }
 
     /**
@@ -127,7 +161,8 @@ public class LogDAO {
     public static List<String[]> getActionLogs() {
         List<String[]> list = new ArrayList<>();
         String sql = "SELECT a.id, u.username, a.action_description, a.timestamp FROM action_logs a LEFT JOIN users u ON a.user_id = u.id ORDER BY a.id DESC";
-        try (java.sql.Connection connection = database.DatabaseConnection.connect()) {
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead()) {
             if (connection == null) {
                 System.out.println("Fetch action logs failed: no database connection");
                 return list;
@@ -139,7 +174,10 @@ public class LogDAO {
                 }
             }
         } catch (SQLException e) {
+            MetricsRegistry.error("LogDAO.getActionLogs");
             System.out.println("Fetch action logs error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("LogDAO.getActionLogs", System.nanoTime() - startNanos);
         }
         return list;
     }
@@ -147,22 +185,43 @@ public class LogDAO {
     /**
      * Fetch action logs where the timestamp starts with the given date prefix.
      * Commonly used to filter logs by a specific day (prefix format like
-     * "MM/dd/yyyy").
+     * "MM/dd/yyyy"). A complete date is served by an index range seek on
+     * {@code timestamp_ms}; partial prefixes fall back to a text match.
      *
      * @param datePrefix a date string prefix to match on the timestamp column
      * @return a list of String[] rows where each row contains (id, username,
      *         action_description, timestamp)
      */
     public static List<String[]> getActionLogsByDatePrefix(String datePrefix) {
+        return fetchByDatePrefix("LogDAO.getActionLogsByDatePrefix", "action logs", "SELECT a.id, u.username, a.action_description, a.timestamp FROM action_logs a LEFT JOIN users u ON a.user_id = u.id",
+                "a", datePrefix);
+    }
+
+    /*
+     * Shared body of the by-date fetches. selectSql is the SELECT ... FROM ...
+     * JOIN part; alias is the log table alias used in the WHERE clause. The
+     * call is timed under the metric name.
+     */
+    private static List<String[]> fetchByDatePrefix(String metric, String label, String selectSql, String alias,
+            String datePrefix) {
         List<String[]> list = new ArrayList<>();
-        String sql = "SELECT a.id, u.username, a.action_description, a.timestamp FROM action_logs a LEFT JOIN users u ON a.user_id = u.id WHERE a.timestamp LIKE ? ORDER BY a.id DESC";
-        try (java.sql.Connection connection = database.DatabaseConnection.connect()) {
+        java.time.LocalDate day = DateTimes.parseDate(datePrefix);
+        String sql = selectSql + (day != null
+                ? " WHERE " + alias + ".timestamp_ms >= ? AND " + alias + ".timestamp_ms < ?"
+                : " WHERE " + alias + ".timestamp LIKE ?") + " ORDER BY " + alias + ".id DESC";
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead()) {
             if (connection == null) {
-                System.out.println("Fetch action logs by date failed: no database connection");
+                System.out.println("Fetch " + label + " by date failed: no database connection");
                 return list;
             }
             try (java.sql.PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setString(1, datePrefix + "%");
+                if (day != null) {
+                    ps.setLong(1, DateTimes.startOfDay(day));
+                    ps.setLong(2, DateTimes.startOfDay(day.plusDays(1)));
+                } else {
+                    ps.setString(1, datePrefix + "%");
+                }
                 try (java.sql.ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
                         list.add(DaoUtils.rowToArray(rs, 4));
@@ -170,8 +229,475 @@ public class LogDAO {
                 }
             }
         } catch (SQLException e) {
-            System.out.println("Fetch action logs by date error: " + e.getMessage());
+            MetricsRegistry.error(metric);
+            System.out.println("Fetch " + label + " by date error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record(metric, System.nanoTime() - startNanos);
         }
         return list;
     }
+
+    // --- Keyset-paged access -------------------------------------------------
+
+    /**
+     * Count the rows matching a query. Used to size a paged table model.
+     *
+     * @param query log table and filters
+     * @return number of matching rows (0 on error)
+     */
+    public static int countLogs(LogQuery query) {
+        return countLogs(query, reachesArchive(query));
+    }
+
+    private static int countLogs(LogQuery query, boolean withArchive) {
+        List<Object> params = new ArrayList<>();
+        String where = buildWhere(query, params);
+        String sql = "SELECT COUNT(*) FROM " + source(query, withArchive) + where;
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead()) {
+            if (connection == null) {
+                System.out.println("Count logs failed: no database connection");
+                return 0;
+            }
+            try (java.sql.PreparedStatement ps = connection.prepareStatement(sql)) {
+                bind(ps, params);
+                try (java.sql.ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        } catch (SQLException e) {
+            MetricsRegistry.error("LogDAO.countLogs");
+            System.out.println("Count logs error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("LogDAO.countLogs", System.nanoTime() - startNanos);
+        }
+        return 0;
+    }
+
+    /**
+     * Fetch one page of log rows in the query's sort order, starting after a
+     * cursor ({@code WHERE (key, id) < (?, ?) ORDER BY key, id LIMIT ?}, with
+     * {@code >} when ascending). Pass the previous page's
+     * {@link LogPage#getLast()} to get the next page; every sort order is
+     * backed by an index, so the cost does not grow with how deep into the log
+     * the page is.
+     *
+     * @param query log table, filters and sort order
+     * @param after cursor of the row before the page, or null for the first
+     *              page
+     * @param limit maximum rows to return
+     * @return the rows (id, text, username, timestamp), in the column order of
+     *         the paged report tables, and the last row's cursor
+     * @throws SQLException if the logs cannot be read, so a failed page is not
+     *                      mistaken for an empty one
+     */
+    public static LogPage getLogPage(LogQuery query, LogPage.Cursor after, int limit) throws SQLException {
+        List<String[]> list = new ArrayList<>();
+        LogPage.Cursor last = null;
+        LogQuery.Kind kind = query.getKind();
+        String[] sortColumns = sortColumns(query);
+        List<Object> params = new ArrayList<>();
+        String where = afterCursor(query, sortColumns, after, buildWhere(query, params), params);
+        StringBuilder sql = new StringBuilder("SELECT ").append(kind.alias).append(".id, ").append(kind.alias)
+                .append('.').append(kind.textColumn).append(", u.username, ").append(kind.alias)
+                .append(".timestamp");
+        for (String column : sortColumns) {
+            sql.append(", ").append(column);
+        }
+        sql.append(" FROM ").append(source(query)).append(" LEFT JOIN users u ON ").append(kind.alias)
+                .append(".user_id = u.id").append(where).append(orderBy(query, sortColumns)).append(" LIMIT ?");
+        params.add(limit);
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead()) {
+            if (connection == null) {
+                throw new SQLException("no database connection");
+            }
+            try (java.sql.PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+                bind(ps, params);
+                try (java.sql.ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        list.add(DaoUtils.rowToArray(rs, 4));
+                        last = readCursor(rs, 5, sortColumns.length, rs.getLong(1));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            MetricsRegistry.error("LogDAO.getLogPage");
+            throw e;
+        } finally {
+            MetricsRegistry.record("LogDAO.getLogPage", System.nanoTime() - startNanos);
+        }
+        return new LogPage(list, last);
+    }
+
+    /**
+     * Stream every row matching a query to a CSV file, newest first, without
+     * loading the rows into memory. Archived rows are always included, whatever
+     * the date filter, so an export is complete even without one.
+     *
+     * @param query   log table and filters
+     * @param file    target file
+     * @param monitor progress and cancel hook
+     * @return rows written, or -1 if cancelled
+     * @throws SQLException if the logs cannot be read
+     * @throws IOException  if the file cannot be written
+     */
+    public static long exportCsv(LogQuery query, Path file, ExportMonitor monitor) throws SQLException, IOException {
+        LogQuery.Kind kind = query.getKind();
+        List<Object> params = new ArrayList<>();
+        String where = buildWhere(query, params);
+        String sql = "SELECT " + kind.alias + ".id, u.username, " + kind.alias + "." + kind.textColumn + ", "
+                + kind.alias + ".timestamp FROM " + source(query, true)
+                + " LEFT JOIN users u ON " + kind.alias + ".user_id = u.id"
+                + where + orderBy(query, sortColumns(query));
+        String[] header = { "id", "username", kind.textColumn, "timestamp" };
+        long total = countLogs(query, true);
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead()) {
+            if (connection == null) {
+                throw new SQLException("no database connection");
+            }
+            return CsvExport.write(connection, sql, params, header, file, total, monitor);
+        } catch (SQLException | IOException e) {
+            MetricsRegistry.error("LogDAO.exportCsv");
+            throw e;
+        } finally {
+            MetricsRegistry.record("LogDAO.exportCsv", System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Find the cursor of the row {@code skip} positions after a cursor,
+     * walking the sort index only. Lets a paged view jump to a far-away page
+     * without fetching the rows in between: the page starts after the
+     * returned cursor.
+     *
+     * @param query log table, filters and sort order
+     * @param after known cursor, or null for the start
+     * @param skip  number of matching rows to skip (at least 1)
+     * @return cursor of the last skipped row, or null if there are not enough
+     *         rows
+     * @throws SQLException if the logs cannot be read
+     */
+    public static LogPage.Cursor findCursorAt(LogQuery query, LogPage.Cursor after, int skip) throws SQLException {
+        LogQuery.Kind kind = query.getKind();
+        String[] sortColumns = sortColumns(query);
+        List<Object> params = new ArrayList<>();
+        String where = afterCursor(query, sortColumns, after, buildWhere(query, params), params);
+        StringBuilder sql = new StringBuilder("SELECT ").append(kind.alias).append(".id");
+        for (String column : sortColumns) {
+            sql.append(", ").append(column);
+        }
+        sql.append(" FROM ").append(source(query)).append(where).append(orderBy(query, sortColumns))
+                .append(" LIMIT 1 OFFSET ?");
+        params.add(skip - 1);
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead()) {
+            if (connection == null) {
+                throw new SQLException("no database connection");
+            }
+            try (java.sql.PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+                bind(ps, params);
+                try (java.sql.ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? readCursor(rs, 2, sortColumns.length, rs.getLong(1)) : null;
+                }
+            }
+        } catch (SQLException e) {
+            MetricsRegistry.error("LogDAO.findCursorAt");
+            throw e;
+        } finally {
+            MetricsRegistry.record("LogDAO.findCursorAt", System.nanoTime() - startNanos);
+        }
+    }
+
+    // --- Sorting -------------------------------------------------------------
+
+    /*
+     * Sort key expressions of a query, before the id tie-breaker. Each order
+     * matches an index: timestamp_ms, (user_id, timestamp_ms) or the NOCASE
+     * text index; ID order is the table itself.
+     */
+    private static String[] sortColumns(LogQuery query) {
+        String prefix = query.getKind().alias + ".";
+        switch (query.getSortKey()) {
+            case TEXT:
+                return new String[] { prefix + query.getKind().textColumn + " COLLATE NOCASE" };
+            case USER:
+                return new String[] { prefix + "user_id", prefix + "timestamp_ms" };
+            case TIME:
+                return new String[] { prefix + "timestamp_ms" };
+            default:
+                return new String[0];
+        }
+    }
+
+    private static String orderBy(LogQuery query, String[] sortColumns) {
+        String direction = query.isAscending() ? " ASC" : " DESC";
+        StringBuilder sb = new StringBuilder(" ORDER BY ");
+        for (String column : sortColumns) {
+            sb.append(column).append(direction).append(", ");
+        }
+        return sb.append(query.getKind().alias).append(".id").append(direction).toString();
+    }
+
+    /*
+     * Add the keyset condition for rows after a cursor to a WHERE clause, as
+     * one row-value comparison SQLite can seek on.
+     */
+    private static String afterCursor(LogQuery query, String[] sortColumns, LogPage.Cursor after, String where,
+            List<Object> params) {
+        if (after == null) {
+            return where;
+        }
+        StringBuilder left = new StringBuilder("(");
+        StringBuilder right = new StringBuilder("(");
+        for (int i = 0; i < sortColumns.length; i++) {
+            left.append(sortColumns[i]).append(", ");
+            right.append("?, ");
+            params.add(after.keys[i]);
+        }
+        left.append(query.getKind().alias).append(".id)");
+        right.append("?)");
+        params.add(after.id);
+        String condition = left + (query.isAscending() ? " > " : " < ") + right;
+        if (sortColumns.length > 0) {
+            // redundant bound on the leading key: SQLite seeks on it even where
+            // it cannot use the row value (e.g. with the NOCASE text index)
+            condition = sortColumns[0] + (query.isAscending() ? " >= ?" : " <= ?") + " AND " + condition;
+            params.add(params.size() - sortColumns.length - 1, after.keys[0]);
+        }
+        return where + (where.isEmpty() ? " WHERE " : " AND ") + condition;
+    }
+
+    private static LogPage.Cursor readCursor(java.sql.ResultSet rs, int firstColumn, int keyCount, long id)
+            throws SQLException {
+        Object[] keys = new Object[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = rs.getObject(firstColumn + i);
+        }
+        return new LogPage.Cursor(keys, id);
+    }
+
+    // --- Archive ---------------------------------------------------------------
+
+    /*
+     * The table (with alias) a report reads: the hot log table, or the hot and
+     * archived rows together when the query's date filter reaches back into
+     * archived data. Archived rows keep their ids, so paging by id works across
+     * both.
+     */
+    private static String source(LogQuery query) {
+        return source(query, reachesArchive(query));
+    }
+
+    private static String source(LogQuery query, boolean withArchive) {
+        LogQuery.Kind kind = query.getKind();
+        if (!withArchive) {
+            return kind.table + " " + kind.alias;
+        }
+        String columns = "id, user_id, " + kind.textColumn + ", timestamp, timestamp_ms";
+        return "(SELECT " + columns + " FROM main." + kind.table + " UNION ALL SELECT " + columns + " FROM "
+                + database.DatabaseConnection.ARCHIVE_SCHEMA + "." + kind.table + ") " + kind.alias;
+    }
+
+    private static boolean reachesArchive(LogQuery query) {
+        if (!query.hasDateFilter()) {
+            return false; // reports without a date filter show the hot (recent) rows
+        }
+        Long from = query.getFromMillis();
+        String datePrefix = query.getDatePrefix();
+        if (datePrefix != null) {
+            java.time.LocalDate day = DateTimes.parseDate(datePrefix);
+            // a partial date may match any year, so only a full date narrows
+            if (day != null && (from == null || from < DateTimes.startOfDay(day))) {
+                from = DateTimes.startOfDay(day);
+            }
+        }
+        return LogArchiver.getInstance().reaches(query.getKind(), from);
+    }
+
+    /**
+     * Move one batch of old rows from a hot log table to the archive. A row is
+     * old when its timestamp is before the cutoff or its id is at or below the
+     * row-cap cutoff. The oldest rows go first.
+     *
+     * The copy into the archive is committed before the rows are deleted from
+     * the hot table, in a second transaction: SQLite only commits atomically
+     * within one file under WAL, so a single transaction spanning both could
+     * lose the copy but keep the delete if the process died mid-commit.
+     *
+     * @param kind         log table
+     * @param cutoffMillis rows stamped before this are old (Long.MIN_VALUE for
+     *                     none)
+     * @param cutoffId     rows with ids up to this are old (-1 for none)
+     * @param limit        maximum rows to move
+     * @return number of rows moved, or -1 on error
+     */
+    static int archiveBatch(LogQuery.Kind kind, long cutoffMillis, long cutoffId, int limit) {
+        String archiveTable = database.DatabaseConnection.ARCHIVE_SCHEMA + "." + kind.table;
+        String columns = "id, user_id, " + kind.textColumn + ", timestamp, timestamp_ms";
+        String old = "(timestamp_ms < ? OR id <= ?)";
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connect()) {
+            if (connection == null) {
+                System.out.println("Archive logs failed: no database connection");
+                return -1;
+            }
+            long upTo;
+            try (java.sql.PreparedStatement ps = connection.prepareStatement("SELECT MAX(id), COUNT(*) FROM (SELECT id FROM main."
+                    + kind.table + " WHERE " + old + " ORDER BY id LIMIT ?)")) {
+                ps.setLong(1, cutoffMillis);
+                ps.setLong(2, cutoffId);
+                ps.setInt(3, limit);
+                try (java.sql.ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next() || rs.getInt(2) == 0) {
+                        return 0;
+                    }
+                    upTo = rs.getLong(1);
+                }
+            }
+            // OR IGNORE: if an earlier run copied rows but died before the
+            // delete, copying them again is harmless
+            try (java.sql.PreparedStatement copy = connection.prepareStatement("INSERT OR IGNORE INTO "
+                    + archiveTable + " (" + columns + ") SELECT " + columns + " FROM main." + kind.table
+                    + " WHERE " + old + " AND id <= ?")) {
+                copy.setLong(1, cutoffMillis);
+                copy.setLong(2, cutoffId);
+                copy.setLong(3, upTo);
+                copy.executeUpdate();
+            }
+            // only rows the archive now holds are deleted
+            try (java.sql.PreparedStatement delete = connection.prepareStatement("DELETE FROM main." + kind.table
+                    + " WHERE " + old + " AND id <= ? AND id IN (SELECT id FROM " + archiveTable
+                    + " WHERE id <= ?)")) {
+                delete.setLong(1, cutoffMillis);
+                delete.setLong(2, cutoffId);
+                delete.setLong(3, upTo);
+                delete.setLong(4, upTo);
+                return delete.executeUpdate();
+            }
+        } catch (SQLException e) {
+            MetricsRegistry.error("LogDAO.archiveBatch");
+            System.out.println("Archive logs error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("LogDAO.archiveBatch", System.nanoTime() - startNanos);
+        }
+        return -1;
+    }
+
+    /**
+     * Find the id below which a hot log table exceeds a row cap: the id of the
+     * newest row that falls outside the newest {@code maxRows}.
+     *
+     * @param kind    log table
+     * @param maxRows rows to keep in the hot table
+     * @return the cutoff id, or -1 if the table is within the cap
+     */
+    static long rowCapCutoffId(LogQuery.Kind kind, int maxRows) {
+        String sql = "SELECT id FROM main." + kind.table + " ORDER BY id DESC LIMIT 1 OFFSET ?";
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead()) {
+            if (connection == null) {
+                return -1;
+            }
+            try (java.sql.PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setInt(1, maxRows);
+                try (java.sql.ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : -1;
+                }
+            }
+        } catch (SQLException e) {
+            MetricsRegistry.error("LogDAO.rowCapCutoffId");
+            System.out.println("Log row cap error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("LogDAO.rowCapCutoffId", System.nanoTime() - startNanos);
+        }
+        return -1;
+    }
+
+    /**
+     * Get the newest timestamp in an archived log table.
+     *
+     * @param kind log table
+     * @return newest archived timestamp_ms, or null if the archive is empty
+     */
+    static Long newestArchivedMillis(LogQuery.Kind kind) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM " + database.DatabaseConnection.ARCHIVE_SCHEMA + "." + kind.table
+                + "), (SELECT MAX(timestamp_ms) FROM " + database.DatabaseConnection.ARCHIVE_SCHEMA + "."
+                + kind.table + ")";
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead()) {
+            if (connection == null) {
+                return null;
+            }
+            try (java.sql.PreparedStatement ps = connection.prepareStatement(sql);
+                    java.sql.ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) == 0) {
+                    return null;
+                }
+                long newest = rs.getLong(2);
+                // rows without a parsable timestamp: treat the archive as reaching any date
+                return rs.wasNull() ? Long.MAX_VALUE : newest;
+            }
+        } catch (SQLException e) {
+            MetricsRegistry.error("LogDAO.newestArchivedMillis");
+            System.out.println("Archive horizon error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("LogDAO.newestArchivedMillis", System.nanoTime() - startNanos);
+        }
+        return null;
+    }
+
+    /*
+     * Build the WHERE clause for a query's filters (empty string if none) and
+     * collect the bind values in order.
+     */
+    private static String buildWhere(LogQuery query, List<Object> params) {
+        String alias = query.getKind().alias;
+        List<String> clauses = new ArrayList<>();
+        String datePrefix = query.getDatePrefix();
+        if (datePrefix != null) {
+            java.time.LocalDate day = DateTimes.parseDate(datePrefix);
+            if (day != null) {
+                clauses.add(alias + ".timestamp_ms >= ? AND " + alias + ".timestamp_ms < ?");
+                params.add(DateTimes.startOfDay(day));
+                params.add(DateTimes.startOfDay(day.plusDays(1)));
+            } else {
+                clauses.add(alias + ".timestamp LIKE ?");
+                params.add(datePrefix + "%");
+            }
+        }
+        // range filters use the (user_id, timestamp_ms) or timestamp_ms index
+        if (query.getFromMillis() != null) {
+            clauses.add(alias + ".timestamp_ms >= ?");
+            params.add(query.getFromMillis());
+        }
+        if (query.getToMillis() != null) {
+            clauses.add(alias + ".timestamp_ms < ?");
+            params.add(query.getToMillis());
+        }
+        if (query.getUserId() != null) {
+            clauses.add(alias + ".user_id = ?");
+            params.add(query.getUserId());
+        }
+        if (query.getTextFilter() != null) {
+            clauses.add(alias + "." + query.getKind().textColumn + " LIKE ? ESCAPE '\\'");
+            params.add("%" + escapeLike(query.getTextFilter()) + "%");
+        }
+        if (query.getActionType() != null) {
+            clauses.add(alias + "." + query.getKind().textColumn + " LIKE ? ESCAPE '\\'");
+            params.add(escapeLike(query.getActionType()) + "%");
+        }
+        return clauses.isEmpty() ? "" : " WHERE " + String.join(" AND ", clauses);
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static void bind(java.sql.PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of log rows from {@link LogDAO#getLogPage}, plus the cursor of its
+ * last row, from which the next page continues.
+ */
+public final class LogPage {
+    private final List<String[]> rows;
+    private final Cursor last;
+
+    LogPage(List<String[]> rows, Cursor last) {
+        this.rows = Collections.unmodifiableList(rows);
+        this.last = last;
+    }
+
+    /**
+     * @return rows of the page as (id, text, username, timestamp)
+     */
+    public List<String[]> getRows() {
+        return rows;
+    }
+
+    /**
+     * @return cursor of the last row, or null if the page is empty
+     */
+    public Cursor getLast() {
+        return last;
+    }
+
+    /**
+     * Position of a row in a query's sort order: its sort key values and id.
+     * Pages start after a cursor, so the cost of a page does not depend on
+     * how deep into the log it is.
+     */
+    public static final class Cursor {
+        final Object[] keys;
+        final long id;
+
+        Cursor(Object[] keys, long id) {
+            this.keys = keys;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package dao;
+
+/**
+ * Describes which log rows a report wants: the log table plus optional
+ * filters. Used by the paged {@link LogDAO} methods.
+ */
+public class LogQuery {
+
+    /** The two log tables, with the alias and text column used in SQL. */
+    public enum Kind {
+        ACTION("action_logs", "a", "action_description"),
+        LOGIN("login_logs", "l", "action_type");
+
+        final String table;
+        final String alias;
+        final String textColumn;
+
+        Kind(String table, String alias, String textColumn) {
+            this.table = table;
+            this.alias = alias;
+            this.textColumn = textColumn;
+        }
+    }
+
+    /** Orders a report can be sorted in; each is served by an index. */
+    public enum SortKey {
+        /** Insertion order. */
+        ID,
+        /** Log text (case-insensitive). */
+        TEXT,
+        /** User (by account id), then time. */
+        USER,
+        /** Time the entry was logged. */
+        TIME
+    }
+
+    private final Kind kind;
+    private String datePrefix;
+    private Long fromMillis;
+    private Long toMillis;
+    private Integer userId;
+    private String actionType;
+    private String textFilter;
+    private SortKey sortKey = SortKey.ID;
+    private boolean ascending;
+
+    /**
+     * Create an unfiltered query over the given log table.
+     *
+     * @param kind which log table to read
+     */
+    public LogQuery(Kind kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * Copy constructor, for holders that must not see later changes.
+     *
+     * @param other query to copy
+     */
+    public LogQuery(LogQuery other) {
+        this.kind = other.kind;
+        this.datePrefix = other.datePrefix;
+        this.fromMillis = other.fromMillis;
+        this.toMillis = other.toMillis;
+        this.userId = other.userId;
+        this.actionType = other.actionType;
+        this.textFilter = other.textFilter;
+        this.sortKey = other.sortKey;
+        this.ascending = other.ascending;
+    }
+
+    /**
+     * Get the log table this query reads.
+     *
+     * @return log kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the date prefix filter (MM/dd/yyyy or a prefix of it).
+     *
+     * @return date prefix, or null for no date filter
+     */
+    public String getDatePrefix() {
+        return datePrefix;
+    }
+
+    /**
+     * Set the date prefix filter. Blank values clear the filter.
+     *
+     * @param datePrefix date prefix, or null for no date filter
+     */
+    public void setDatePrefix(String datePrefix) {
+        this.datePrefix = datePrefix == null || datePrefix.trim().isEmpty() ? null : datePrefix.trim();
+    }
+
+    /**
+     * Get the start of the date range filter.
+     *
+     * @return inclusive epoch millis, or null for no lower bound
+     */
+    public Long getFromMillis() {
+        return fromMillis;
+    }
+
+    /**
+     * Get the end of the date range filter.
+     *
+     * @return exclusive epoch millis, or null for no upper bound
+     */
+    public Long getToMillis() {
+        return toMillis;
+    }
+
+    /**
+     * Set the date range filter, matched against the indexed
+     * {@code timestamp_ms} column.
+     *
+     * @param fromMillis inclusive start in epoch millis, or null for none
+     * @param toMillis   exclusive end in epoch millis, or null for none
+     */
+    public void setDateRange(Long fromMillis, Long toMillis) {
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    /**
+     * Whether any date filter (prefix or range) is set.
+     *
+     * @return true if the query is limited by date
+     */
+    public boolean hasDateFilter() {
+        return datePrefix != null || fromMillis != null || toMillis != null;
+    }
+
+    /**
+     * Get the user filter.
+     *
+     * @return id of the user whose rows are wanted, or null for all users
+     */
+    public Integer getUserId() {
+        return userId;
+    }
+
+    /**
+     * Set the user filter.
+     *
+     * @param userId id of the user whose rows are wanted, or null for all users
+     */
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Get the action type filter.
+     *
+     * @return leading text of the log entry (e.g. "Deleted"), or null for all
+     */
+    public String getActionType() {
+        return actionType;
+    }
+
+    /**
+     * Set the action type filter: rows whose text starts with the given value,
+     * ignoring case. Blank values clear the filter.
+     *
+     * @param actionType leading text of the log entry, or null for all
+     */
+    public void setActionType(String actionType) {
+        this.actionType = actionType == null || actionType.trim().isEmpty() ? null : actionType.trim();
+    }
+
+    /**
+     * Get the free-text filter.
+     *
+     * @return text the log entry must contain, or null for no filter
+     */
+    public String getTextFilter() {
+        return textFilter;
+    }
+
+    /**
+     * Set the free-text filter: rows whose text contains the value, ignoring
+     * case. Blank values clear the filter.
+     *
+     * @param textFilter text the log entry must contain, or null for none
+     */
+    public void setTextFilter(String textFilter) {
+        this.textFilter = textFilter == null || textFilter.trim().isEmpty() ? null : textFilter.trim();
+    }
+
+    /**
+     * Get the sort order.
+     *
+     * @return key rows are sorted by (ties broken by id)
+     */
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    /**
+     * @return true for ascending order, false for descending (newest first)
+     */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Set the sort order. The default is {@link SortKey#ID} descending, i.e.
+     * newest first.
+     *
+     * @param sortKey   key to sort by
+     * @param ascending true for ascending order
+     */
+    public void setSort(SortKey sortKey, boolean ascending) {
+        this.sortKey = sortKey == null ? SortKey.ID : sortKey;
+        this.ascending = ascending;
+    }
+}
@@ -0,0 +1,136 @@
+package dao;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background cleanup of soft-deleted devices.
+ *
+ * Deleting a device only sets its {@code deleted_at} tombstone. Every
+ * {@code clims.purge.intervalSec} seconds this task physically removes devices
+ * whose tombstone is older than {@code clims.purge.retentionHours} (the window
+ * in which a delete can still be undone). Rows are removed in short
+ * transactions of at most {@code clims.purge.batchSize} rows with a pause
+ * between them, so a large cleanup never holds the single writer connection
+ * long enough to stall interactive saves.
+ */
+public final class TombstonePurger {
+    private static final long INTERVAL_SEC = Math.max(1, Long.getLong("clims.purge.intervalSec", 600L));
+    private static final long RETENTION_MS = TimeUnit.HOURS
+            .toMillis(Math.max(0, Long.getLong("clims.purge.retentionHours", 24L)));
+    private static final int BATCH_SIZE = Math.max(1, Integer.getInteger("clims.purge.batchSize", 500));
+    private static final long PAUSE_MS = Math.max(0, Long.getLong("clims.purge.pauseMs", 100L));
+    private static final long INITIAL_DELAY_SEC = 60;
+
+    private static final TombstonePurger INSTANCE = new TombstonePurger();
+
+    private ScheduledExecutorService scheduler; // guarded by this
+    private final AtomicLong purged = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+
+    private TombstonePurger() {
+    }
+
+    /**
+     * Get the shared purger.
+     *
+     * @return application-wide purger
+     */
+    public static TombstonePurger getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start the periodic purge on a daemon thread. Does nothing if already
+     * started.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "clims-tombstone-purger");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, INITIAL_DELAY_SEC, INTERVAL_SEC, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the periodic purge, interrupting a run in progress between batches.
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Purge every tombstone older than the retention window now, batch by
+     * batch, on the calling thread.
+     *
+     * @return number of devices removed
+     */
+    public long purgeNow() {
+        return purge(System.currentTimeMillis() - RETENTION_MS);
+    }
+
+    /**
+     * Purge every tombstone older than the cutoff, batch by batch, on the
+     * calling thread.
+     *
+     * @param deletedBefore epoch millis; only older tombstones are purged
+     * @return number of devices removed
+     */
+    public long purge(long deletedBefore) {
+        runs.incrementAndGet();
+        long total = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            int rows = DeviceDAO.purgeDeleted(deletedBefore, BATCH_SIZE);
+            if (rows <= 0) {
+                break;
+            }
+            total += rows;
+            purged.addAndGet(rows);
+            if (rows < BATCH_SIZE) {
+                break;
+            }
+            try {
+                // let queued writes (saves, audit logs) take the writer between batches
+                Thread.sleep(PAUSE_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return devices removed since startup
+     */
+    public long getPurgedCount() {
+        return purged.get();
+    }
+
+    /**
+     * @return one-line summary of purge activity
+     */
+    public String describeStats() {
+        return "runs=" + runs.get() + " purged=" + purged.get();
+    }
+
+    private void runSafely() {
+        try {
+            long removed = purgeNow();
+            if (removed > 0) {
+                System.out.println("Purged " + removed + " deleted devices");
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Tombstone purge error: " + e.getMessage());
+        }
+    }
+}
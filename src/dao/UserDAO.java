@@ -1,6 +1,7 @@
 package dao;
 
 import model.User;
+import util.MetricsRegistry;
 
 public class UserDAO {
 
@@ -14,7 +15,8 @@ public class UserDAO {
 
     public static User authenticate(String username, String password) {
         String sql = "SELECT id,username,password,role FROM users WHERE username = ? AND password = ?";
-        try (java.sql.Connection connection = database.DatabaseConnection.connect();
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead();
                 java.sql.PreparedStatement statement = connection.prepareStatement(sql)) {
 
             statement.setString(1, username);
@@ -25,8 +27,36 @@ public class UserDAO {
                 }
             }
         } catch (java.sql.SQLException e) {
+            MetricsRegistry.error("UserDAO.authenticate");
             System.out.println("Authentication error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("UserDAO.authenticate", System.nanoTime() - startNanos);
         }
         return null;
     }
+
+    /**
+     * Get every user, ordered by username. Used to fill the user filter of the
+     * reports.
+     *
+     * @return list of users (empty on error)
+     */
+    public static java.util.List<User> getAll() {
+        java.util.List<User> users = new java.util.ArrayList<>();
+        String sql = "SELECT id,username,password,role FROM users ORDER BY username COLLATE NOCASE";
+        long startNanos = System.nanoTime();
+        try (java.sql.Connection connection = database.DatabaseConnection.connectForRead();
+                java.sql.PreparedStatement statement = connection.prepareStatement(sql);
+                java.sql.ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                users.add(DaoUtils.mapUser(rs));
+            }
+        } catch (java.sql.SQLException e) {
+            MetricsRegistry.error("UserDAO.getAll");
+            System.out.println("Fetch users error: " + e.getMessage());
+        } finally {
+            MetricsRegistry.record("UserDAO.getAll", System.nanoTime() - startNanos);
+        }
+        return users;
+    }
 }
@@ -0,0 +1,446 @@
+package database;
+
+import util.MetricsRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small pool of long-lived SQLite connections: a single writer and a few
+ * readers. SQLite only allows one writer at a time anyway, so funnelling all
+ * writes through one connection avoids lock contention between our own
+ * threads, while readers can run side by side.
+ *
+ * Callers never see the physical connections. They receive a proxy whose
+ * {@code close()} hands the connection back to the pool, so existing
+ * try-with-resources blocks in the DAOs keep working unchanged. Each physical
+ * connection is configured with the {@link PragmaProfile} when it is opened,
+ * and the writer runs periodic passive WAL checkpoints in the background.
+ * {@code prepareStatement(String)} calls go through a per-connection
+ * {@link StatementCache}, and every prepared statement can be timed by the
+ * opt-in {@link SlowQueryLog}.
+ */
+public final class ConnectionPool {
+    private static final int READER_COUNT = Math.max(1, Integer.getInteger("clims.db.readers", 3));
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("clims.db.borrowTimeoutMs", 10_000L);
+
+    private static volatile ConnectionPool instance;
+
+    private final PragmaProfile profile = PragmaProfile.fromSystemProperties();
+    private final ScheduledExecutorService checkpointer;
+    private final BlockingQueue<Connection> idleWriter = new ArrayBlockingQueue<>(1);
+    private final BlockingQueue<Connection> idleReaders = new ArrayBlockingQueue<>(READER_COUNT);
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final AtomicInteger openReaders = new AtomicInteger();
+    private volatile boolean writerOpened;
+    private volatile boolean closed;
+
+    // Metrics
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong returns = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong physicalOpens = new AtomicLong();
+    private final AtomicLong totalOpenNanos = new AtomicLong();
+
+    private ConnectionPool() {
+        DatabaseConnection.ensureDatabaseFile();
+        int interval = profile.getCheckpointIntervalSeconds();
+        if (profile.isWal() && interval > 0) {
+            checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "clims-db-checkpoint");
+                t.setDaemon(true);
+                return t;
+            });
+            checkpointer.scheduleWithFixedDelay(() -> checkpoint(false), interval, interval, TimeUnit.SECONDS);
+        } else {
+            checkpointer = null;
+        }
+    }
+
+    /**
+     * Get the shared pool, creating it (and checking the database file) on first
+     * use.
+     *
+     * @return the application-wide connection pool
+     */
+    public static ConnectionPool getInstance() {
+        ConnectionPool pool = instance;
+        if (pool == null) {
+            synchronized (ConnectionPool.class) {
+                pool = instance;
+                if (pool == null) {
+                    pool = new ConnectionPool();
+                    instance = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Borrow the writer connection. Only one caller can hold it at a time;
+     * others wait until it is returned.
+     *
+     * @return pooled writer connection (close it to return it)
+     * @throws SQLException if the pool is closed, the connection cannot be
+     *                      opened, or the wait times out
+     */
+    public Connection borrowWriter() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        Connection physical = idleWriter.poll();
+        if (physical != null) {
+            reuses.incrementAndGet();
+        } else if (!writerOpened) {
+            synchronized (this) {
+                if (!writerOpened) {
+                    physical = openPhysical(true);
+                    writerOpened = true;
+                }
+            }
+        }
+        if (physical == null) {
+            physical = await(idleWriter, "writer");
+        }
+        recordBorrow(start);
+        return wrap(physical, true);
+    }
+
+    /**
+     * Borrow a reader connection. Up to {@code clims.db.readers} readers are
+     * opened lazily and then reused.
+     *
+     * @return pooled reader connection (close it to return it)
+     * @throws SQLException if the pool is closed, the connection cannot be
+     *                      opened, or the wait times out
+     */
+    public Connection borrowReader() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        Connection physical = idleReaders.poll();
+        if (physical != null) {
+            reuses.incrementAndGet();
+        } else if (openReaders.incrementAndGet() <= READER_COUNT) {
+            try {
+                physical = openPhysical(false);
+            } catch (SQLException e) {
+                openReaders.decrementAndGet();
+                throw e;
+            }
+        } else {
+            openReaders.decrementAndGet();
+            physical = await(idleReaders, "reader");
+        }
+        recordBorrow(start);
+        return wrap(physical, false);
+    }
+
+    private Connection await(BlockingQueue<Connection> queue, String kind) throws SQLException {
+        try {
+            Connection physical = queue.poll(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (physical == null) {
+                timeouts.incrementAndGet();
+                MetricsRegistry.error("ConnectionPool.borrow");
+                throw new SQLException("Timed out waiting for a " + kind + " connection");
+            }
+            reuses.incrementAndGet();
+            return physical;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + kind + " connection", e);
+        }
+    }
+
+    private Connection openPhysical(boolean writer) throws SQLException {
+        long start = System.nanoTime();
+        Connection physical = DatabaseConnection.openPhysical();
+        try {
+            // attach first so the profile's per-schema pragmas (synchronous,
+            // cache_size, mmap_size) are set on the archive as well
+            DatabaseConnection.attachArchive(physical);
+            profile.apply(physical, writer);
+        } catch (SQLException e) {
+            closeQuietly(physical);
+            MetricsRegistry.error("ConnectionPool.open");
+            throw e;
+        }
+        statementCaches.put(physical, new StatementCache(physical));
+        long opened = System.nanoTime() - start;
+        totalOpenNanos.addAndGet(opened);
+        physicalOpens.incrementAndGet();
+        MetricsRegistry.record("ConnectionPool.open", opened);
+        return physical;
+    }
+
+    private void recordBorrow(long startNanos) {
+        long waited = System.nanoTime() - startNanos;
+        borrows.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        MetricsRegistry.record("ConnectionPool.borrow", waited);
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+
+    /*
+     * Hand a physical connection back to its idle queue. Any transaction left
+     * open by the borrower is rolled back so the next caller starts clean.
+     * Broken connections are dropped and reopened on demand.
+     */
+    private void release(Connection physical, boolean writer) {
+        returns.incrementAndGet();
+        boolean healthy;
+        try {
+            healthy = !physical.isClosed();
+            if (healthy && !physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Discarding pooled connection: " + e.getMessage());
+            healthy = false;
+        }
+
+        if (closed || !healthy) {
+            closeQuietly(physical);
+            if (writer) {
+                writerOpened = false;
+            } else {
+                openReaders.decrementAndGet();
+            }
+            return;
+        }
+        if (writer) {
+            idleWriter.offer(physical);
+        } else if (!idleReaders.offer(physical)) {
+            closeQuietly(physical);
+            openReaders.decrementAndGet();
+        }
+    }
+
+    /*
+     * Checkpoint through the writer so the WAL file doesn't grow without bound.
+     * Skipped if the writer has never been opened.
+     */
+    private void checkpoint(boolean truncate) {
+        if (closed || !writerOpened) {
+            return;
+        }
+        try (Connection writer = borrowWriter()) {
+            profile.checkpoint(writer, truncate);
+        } catch (SQLException e) {
+            System.err.println("WAL checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    /** @return the PRAGMA profile applied to pooled connections */
+    public PragmaProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Checkpoint and truncate the WAL, close all idle connections and refuse
+     * further borrows. Connections that are still borrowed are closed when they
+     * are returned.
+     */
+    public void close() {
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+        }
+        checkpoint(true);
+        closed = true;
+        Connection c;
+        while ((c = idleReaders.poll()) != null) {
+            closeQuietly(c);
+        }
+        while ((c = idleWriter.poll()) != null) {
+            closeQuietly(c);
+        }
+    }
+
+    private void closeQuietly(Connection c) {
+        StatementCache cache = statementCaches.remove(c);
+        if (cache != null) {
+            cache.closeAll();
+        }
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private Connection wrap(Connection physical, boolean writer) {
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new PooledConnectionHandler(physical, writer));
+    }
+
+    // --- Metrics -----------------------------------------------------------
+
+    /** @return number of successful borrows */
+    public long getBorrowCount() {
+        return borrows.get();
+    }
+
+    /** @return number of connections handed back to the pool */
+    public long getReturnCount() {
+        return returns.get();
+    }
+
+    /** @return borrows served by an already-open connection */
+    public long getReuseCount() {
+        return reuses.get();
+    }
+
+    /** @return borrows that gave up waiting for a connection */
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    /** @return number of physical JDBC connections opened so far */
+    public long getPhysicalOpenCount() {
+        return physicalOpens.get();
+    }
+
+    /** @return average time spent inside a borrow call, in microseconds */
+    public double getAverageBorrowMicros() {
+        long n = borrows.get();
+        return n == 0 ? 0 : totalWaitNanos.get() / 1000.0 / n;
+    }
+
+    /** @return longest time spent inside a single borrow call, in microseconds */
+    public double getMaxBorrowMicros() {
+        return maxWaitNanos.get() / 1000.0;
+    }
+
+    /** @return average cost of opening a physical connection, in microseconds */
+    public double getAverageOpenMicros() {
+        long n = physicalOpens.get();
+        return n == 0 ? 0 : totalOpenNanos.get() / 1000.0 / n;
+    }
+
+    /**
+     * Estimate how much time the pool has saved compared to opening a new
+     * connection for every borrow: reused borrows times the average open cost.
+     *
+     * @return estimated saved time in milliseconds
+     */
+    public double getEstimatedSavedMillis() {
+        return reuses.get() * getAverageOpenMicros() / 1000.0;
+    }
+
+    /** @return prepared statements served from the statement caches */
+    public long getStatementCacheHits() {
+        return StatementCache.getHitCount();
+    }
+
+    /** @return prepared statements that missed the statement caches */
+    public long getStatementCacheMisses() {
+        return StatementCache.getMissCount();
+    }
+
+    /**
+     * One-line summary of the statement cache counters, suitable for logging.
+     *
+     * @return human-readable cache summary
+     */
+    public String describeStatementCacheStats() {
+        return StatementCache.describeStats();
+    }
+
+    /**
+     * One-line summary of the slow-query log counters.
+     *
+     * @return human-readable summary, or how to turn the log on
+     */
+    public String describeSlowQueryStats() {
+        return SlowQueryLog.describeStats();
+    }
+
+    /**
+     * One-line summary of the pool metrics, suitable for logging.
+     *
+     * @return human-readable metrics summary
+     */
+    public String describeStats() {
+        return String.format(
+                "borrows=%d returns=%d reuses=%d opens=%d timeouts=%d avgBorrow=%.1fus maxBorrow=%.1fus avgOpen=%.1fus saved~%.1fms",
+                getBorrowCount(), getReturnCount(), getReuseCount(), getPhysicalOpenCount(), getTimeoutCount(),
+                getAverageBorrowMicros(), getMaxBorrowMicros(), getAverageOpenMicros(), getEstimatedSavedMillis());
+    }
+
+    /*
+     * Forwards every call to the physical connection except close(), which
+     * returns it to the pool. After close the proxy behaves like a closed
+     * connection.
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private final boolean writer;
+        private boolean returned;
+
+        PooledConnectionHandler(Connection physical, boolean writer) {
+            this.physical = physical;
+            this.writer = writer;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(physical, writer);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + (writer ? "Writer" : "Reader") + "[" + physical + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            boolean prepare = "prepareStatement".equals(method.getName());
+            if (prepare && args.length == 1) {
+                StatementCache cache = statementCaches.get(physical);
+                if (cache != null) {
+                    return SlowQueryLog.wrap(cache.prepare((String) args[0]), (String) args[0], physical);
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return prepare ? SlowQueryLog.wrap((PreparedStatement) result, (String) args[0], physical) : result;
+        }
+    }
+}
@@ -9,12 +9,46 @@ import java.sql.SQLException;
 /**
  * DatabaseConnection class to manage SQLite database connections.
  * Ensures database directory and file exist before attempting connection.
+ * Connections handed out here come from the shared {@link ConnectionPool};
+ * closing them returns them to the pool.
  */
 public class DatabaseConnection {
-    private static final String DB_RELATIVE_PATH = "lib/database/CLIMS_Database.sqlite";
+    private static final String DEFAULT_DB_PATH = "lib/database/CLIMS_Database.sqlite";
+    // -Dclims.db.path points the application (or a benchmark) at another file
+    private static final String DB_RELATIVE_PATH = System.getProperty("clims.db.path", DEFAULT_DB_PATH);
     private static final String DB_URL = "jdbc:sqlite:" + DB_RELATIVE_PATH;
+    // archived log rows live in a second file, attached to every connection
+    private static final String ARCHIVE_RELATIVE_PATH = archivePathFor(DB_RELATIVE_PATH);
 
-    private static void ensureDatabaseFile() {
+    /** Schema name the archive database is attached under. */
+    public static final String ARCHIVE_SCHEMA = "archive";
+
+    /*
+     * The archive of the default database keeps its own name; an overridden
+     * database gets "<name>_Archive.sqlite" beside it, so two databases never
+     * share an archive.
+     */
+    private static String archivePathFor(String dbPath) {
+        if (dbPath.equals(DEFAULT_DB_PATH)) {
+            return "lib/database/CLIMS_Archive.sqlite";
+        }
+        int dot = dbPath.lastIndexOf('.');
+        String base = dot > Math.max(dbPath.lastIndexOf('/'), dbPath.lastIndexOf('\\')) ? dbPath.substring(0, dot)
+                : dbPath;
+        return base + "_Archive.sqlite";
+    }
+
+    /**
+     * Get the path of the database file in use.
+     *
+     * @return path set with {@code clims.db.path}, or the default under
+     *         lib/database
+     */
+    public static String getDatabasePath() {
+        return DB_RELATIVE_PATH;
+    }
+
+    static void ensureDatabaseFile() {
         File dbFile = new File(DB_RELATIVE_PATH);
         File parentDir = dbFile.getParentFile();
         if (parentDir != null && !parentDir.exists()) {
@@ -39,11 +73,59 @@ public class DatabaseConnection {
         }
     }
 
+    /**
+     * Open a new physical connection to the database file. Only the pool should
+     * call this; everyone else borrows through {@link #connect()} or
+     * {@link #connectForRead()}.
+     *
+     * @return a new JDBC connection
+     * @throws SQLException if the driver cannot open the file
+     */
+    static Connection openPhysical() throws SQLException {
+        return DriverManager.getConnection(DB_URL);
+    }
+
+    /**
+     * Attach the log archive database to a new physical connection as
+     * {@link #ARCHIVE_SCHEMA}. SQLite creates the file if it doesn't exist.
+     *
+     * @param connection new physical connection
+     * @throws SQLException if the archive cannot be attached
+     */
+    static void attachArchive(Connection connection) throws SQLException {
+        try (java.sql.PreparedStatement ps = connection
+                .prepareStatement("ATTACH DATABASE ? AS " + ARCHIVE_SCHEMA)) {
+            ps.setString(1, ARCHIVE_RELATIVE_PATH);
+            ps.execute();
+        }
+    }
+
+    /**
+     * Borrow the pooled writer connection. Use this for INSERT/UPDATE/DELETE and
+     * schema changes.
+     *
+     * @return pooled connection, or null if none could be obtained
+     */
     public static Connection connect() {
-        ensureDatabaseFile();
         Connection connection = null;
         try {
-            connection = DriverManager.getConnection(DB_URL);
+            connection = ConnectionPool.getInstance().borrowWriter();
+        } catch (SQLException e) {
+            System.err.println("Database connection failed: " + e.getMessage());
+        }
+        return connection;
+    }
+
+    /**
+     * Borrow a pooled reader connection. Use this for SELECT-only work so reads
+     * don't queue behind the writer.
+     *
+     * @return pooled connection, or null if none could be obtained
+     */
+    public static Connection connectForRead() {
+        Connection connection = null;
+        try {
+            connection = ConnectionPool.getInstance().borrowReader();
         } catch (SQLException e) {
             System.err.println("Database connection failed: " + e.getMessage());
         }
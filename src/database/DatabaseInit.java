@@ -4,11 +4,20 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+
+import util.DateTimes;
 
 /**
  * Initialize database schema and seed minimal data.
+ * Schema changes after the original tables are applied as numbered migrations
+ * tracked in SQLite's {@code PRAGMA user_version}; the attached archive database
+ * keeps its own user_version.
  */
 public class DatabaseInit {
+    /** Schema version this build expects; bump when adding a migration. */
+    static final int SCHEMA_VERSION = 4;
+    private static final int BACKFILL_BATCH = 500;
 
     public static void initialize() {
         try (Connection conn = DatabaseConnection.connect()) {
@@ -67,10 +76,185 @@ public class DatabaseInit {
                 }
             }
 
+            migrate(conn, "main");
+            initializeArchive(conn);
+
             System.out.println("Database initialized.");
 
         } catch (SQLException e) {
             System.out.println("Database initialization failed: " + e.getMessage());
         }
     }
+
+    /*
+     * Bring a schema ("main" or the archive) up to SCHEMA_VERSION. Each step
+     * runs in its own transaction together with that schema's user_version
+     * bump, so it runs once and a failed step is retried on the next start.
+     * Steps 1 and 2 only touch the main database: the archive tables are
+     * created with timestamp_ms and there are no archived devices.
+     */
+    private static void migrate(Connection conn, String schema) throws SQLException {
+        boolean main = "main".equals(schema);
+        int version;
+        try (Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery("PRAGMA " + schema + ".user_version")) {
+            version = rs.next() ? rs.getInt(1) : 0;
+        }
+        while (version < SCHEMA_VERSION) {
+            int next = version + 1;
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                switch (next) {
+                    case 1:
+                        if (main) {
+                            migrateToV1(conn, st);
+                        }
+                        break;
+                    case 2:
+                        if (main) {
+                            migrateToV2(st);
+                        }
+                        break;
+                    case 3:
+                        migrateToV3(st, schema);
+                        break;
+                    case 4:
+                        migrateToV4(st, schema);
+                        break;
+                    default:
+                        throw new SQLException("No migration to schema version " + next);
+                }
+                st.execute("PRAGMA " + schema + ".user_version = " + next);
+                conn.commit();
+                System.out.println((main ? "Database" : "Archive") + " migrated to schema version " + next + ".");
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            version = next;
+        }
+    }
+
+    /*
+     * v1: epoch-millis timestamp columns on the log tables (backfilled from the
+     * text timestamps), indexes for time/user lookups, and a NOCASE index so
+     * case-insensitive status lookups can seek instead of scan.
+     */
+    private static void migrateToV1(Connection conn, Statement st) throws SQLException {
+        st.execute("ALTER TABLE login_logs ADD COLUMN timestamp_ms INTEGER");
+        st.execute("ALTER TABLE action_logs ADD COLUMN timestamp_ms INTEGER");
+        backfillTimestamps(conn, "login_logs");
+        backfillTimestamps(conn, "action_logs");
+
+        st.execute("CREATE INDEX IF NOT EXISTS idx_login_logs_ts ON login_logs(timestamp_ms)");
+        st.execute("CREATE INDEX IF NOT EXISTS idx_login_logs_user ON login_logs(user_id)");
+        st.execute("CREATE INDEX IF NOT EXISTS idx_action_logs_ts ON action_logs(timestamp_ms)");
+        st.execute("CREATE INDEX IF NOT EXISTS idx_action_logs_user ON action_logs(user_id)");
+        st.execute("CREATE INDEX IF NOT EXISTS idx_devices_status ON devices(status COLLATE NOCASE)");
+        st.execute("ANALYZE");
+    }
+
+    /*
+     * v2: deleted_at tombstone on devices for soft deletes. The status index is
+     * rebuilt as a partial index over live devices (with deleted_at included so
+     * status counts stay index-only), and a partial index over tombstones lets
+     * the purge find them without scanning.
+     */
+    private static void migrateToV2(Statement st) throws SQLException {
+        st.execute("ALTER TABLE devices ADD COLUMN deleted_at INTEGER");
+        st.execute("DROP INDEX IF EXISTS idx_devices_status");
+        st.execute("CREATE INDEX idx_devices_status ON devices(status COLLATE NOCASE, deleted_at) WHERE deleted_at IS NULL");
+        st.execute("CREATE INDEX idx_devices_deleted ON devices(deleted_at) WHERE deleted_at IS NOT NULL");
+    }
+
+    /*
+     * v3: the per-user log indexes also carry timestamp_ms, so a report
+     * filtered by user and date range seeks straight to the matching rows.
+     * Also applied to the archive tables.
+     */
+    private static void migrateToV3(Statement st, String schema) throws SQLException {
+        for (String table : new String[] { "login_logs", "action_logs" }) {
+            st.execute("DROP INDEX IF EXISTS " + schema + ".idx_" + table + "_user");
+            st.execute("CREATE INDEX IF NOT EXISTS " + schema + ".idx_" + table + "_user_ts ON " + table
+                    + "(user_id, timestamp_ms)");
+        }
+    }
+
+    /*
+     * v4: reports sort by any column with keyset paging on (key, id), which
+     * needs an index per order and no NULL keys (a row-value comparison with a
+     * NULL never matches). Adds a case-insensitive index on the log text and
+     * gives rows whose text timestamp could not be parsed timestamp_ms 0.
+     * Also applied to the archive tables.
+     */
+    private static void migrateToV4(Statement st, String schema) throws SQLException {
+        String[][] tables = { { "login_logs", "action_type" }, { "action_logs", "action_description" } };
+        for (String[] t : tables) {
+            st.execute("UPDATE " + schema + "." + t[0] + " SET timestamp_ms = 0 WHERE timestamp_ms IS NULL");
+            st.execute("UPDATE " + schema + "." + t[0] + " SET " + t[1] + " = '' WHERE " + t[1] + " IS NULL");
+            st.execute("UPDATE " + schema + "." + t[0] + " SET user_id = 0 WHERE user_id IS NULL");
+            st.execute("CREATE INDEX IF NOT EXISTS " + schema + ".idx_" + t[0] + "_text ON " + t[0] + "(" + t[1]
+                    + " COLLATE NOCASE)");
+        }
+    }
+
+    /*
+     * Log tables in the attached archive database (see LogArchiver). They mirror
+     * the hot tables, keeping the original ids so paging by id works across
+     * both. Index changes are applied by the same numbered migrations as the
+     * main database.
+     */
+    private static void initializeArchive(Connection conn) throws SQLException {
+        String archive = DatabaseConnection.ARCHIVE_SCHEMA;
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS " + archive + ".login_logs ("
+                    + "id INTEGER PRIMARY KEY,"
+                    + "user_id INTEGER,"
+                    + "action_type TEXT,"
+                    + "timestamp TEXT,"
+                    + "timestamp_ms INTEGER" + ")");
+            st.execute("CREATE TABLE IF NOT EXISTS " + archive + ".action_logs ("
+                    + "id INTEGER PRIMARY KEY,"
+                    + "user_id INTEGER,"
+                    + "action_description TEXT,"
+                    + "timestamp TEXT,"
+                    + "timestamp_ms INTEGER" + ")");
+            st.execute("CREATE INDEX IF NOT EXISTS " + archive + ".idx_login_logs_ts ON login_logs(timestamp_ms)");
+            st.execute("CREATE INDEX IF NOT EXISTS " + archive + ".idx_action_logs_ts ON action_logs(timestamp_ms)");
+        }
+        migrate(conn, archive);
+    }
+
+    private static void backfillTimestamps(Connection conn, String table) throws SQLException {
+        String select = "SELECT id, timestamp FROM " + table + " WHERE timestamp_ms IS NULL";
+        String update = "UPDATE " + table + " SET timestamp_ms = ? WHERE id = ?";
+        int unparsable = 0;
+        try (PreparedStatement sel = conn.prepareStatement(select);
+                ResultSet rs = sel.executeQuery();
+                PreparedStatement upd = conn.prepareStatement(update)) {
+            int pending = 0;
+            while (rs.next()) {
+                Long millis = DateTimes.parseLogTimestamp(rs.getString(2));
+                if (millis == null) {
+                    unparsable++;
+                    continue;
+                }
+                upd.setLong(1, millis);
+                upd.setInt(2, rs.getInt(1));
+                upd.addBatch();
+                if (++pending == BACKFILL_BATCH) {
+                    upd.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                upd.executeBatch();
+            }
+        }
+        if (unparsable > 0) {
+            System.out.println("Backfill " + table + ": " + unparsable + " rows with unparsable timestamps left empty");
+        }
+    }
 }
@@ -0,0 +1,155 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQLite PRAGMA settings applied to every pooled connection when it is opened.
+ *
+ * Defaults favour a desktop app with one writer and several readers: WAL
+ * journaling so readers never block on the writer, synchronous=NORMAL (safe in
+ * WAL mode, no fsync per commit), an in-memory temp store and a generous page
+ * cache. Every value can be overridden with a {@code clims.db.*} system
+ * property, e.g. {@code -Dclims.db.synchronous=FULL}.
+ *
+ * synchronous, cache_size and mmap_size are per schema in SQLite, so they are
+ * set on every database attached at the time the profile is applied, not just
+ * on main.
+ */
+public final class PragmaProfile {
+    private final String journalMode;
+    private final String synchronous;
+    private final long mmapSizeBytes;
+    private final int cacheSizeKib;
+    private final String tempStore;
+    private final int busyTimeoutMs;
+    private final int walAutocheckpointPages;
+    private final int checkpointIntervalSeconds;
+
+    private PragmaProfile(String journalMode, String synchronous, long mmapSizeBytes, int cacheSizeKib,
+            String tempStore, int busyTimeoutMs, int walAutocheckpointPages, int checkpointIntervalSeconds) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.mmapSizeBytes = mmapSizeBytes;
+        this.cacheSizeKib = cacheSizeKib;
+        this.tempStore = tempStore;
+        this.busyTimeoutMs = busyTimeoutMs;
+        this.walAutocheckpointPages = walAutocheckpointPages;
+        this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+    }
+
+    /**
+     * Build the profile from {@code clims.db.*} system properties, falling back
+     * to the defaults described on the class.
+     *
+     * @return the configured profile
+     */
+    public static PragmaProfile fromSystemProperties() {
+        return new PragmaProfile(
+                keyword(System.getProperty("clims.db.journalMode", "WAL")),
+                keyword(System.getProperty("clims.db.synchronous", "NORMAL")),
+                Long.getLong("clims.db.mmapSize", 64L * 1024 * 1024),
+                Integer.getInteger("clims.db.cacheSizeKib", 8 * 1024),
+                keyword(System.getProperty("clims.db.tempStore", "MEMORY")),
+                Integer.getInteger("clims.db.busyTimeoutMs", 5_000),
+                Integer.getInteger("clims.db.walAutocheckpoint", 1_000),
+                Integer.getInteger("clims.db.checkpointIntervalSec", 300));
+    }
+
+    /*
+     * PRAGMA values can't be bound as parameters, so only accept plain keywords
+     * to keep property values from being spliced into SQL.
+     */
+    private static String keyword(String value) {
+        String v = value.trim().toUpperCase();
+        if (!v.matches("[A-Z_]+")) {
+            throw new IllegalArgumentException("Invalid PRAGMA value: " + value);
+        }
+        return v;
+    }
+
+    /**
+     * Apply the profile to a freshly opened connection and every database
+     * already attached to it.
+     *
+     * @param connection physical connection to configure
+     * @param writer     true for the pool's writer connection; readers are
+     *                   additionally marked query-only
+     * @throws SQLException if a PRAGMA fails
+     */
+    public void apply(Connection connection, boolean writer) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            // busy_timeout first so the journal_mode switch can wait out other
+            // connections instead of failing immediately
+            st.execute("PRAGMA busy_timeout = " + busyTimeoutMs);
+            // journal_mode without a schema applies to every attached database
+            st.execute("PRAGMA journal_mode = " + journalMode);
+            st.execute("PRAGMA temp_store = " + tempStore);
+            for (String schema : attachedSchemas(st)) {
+                String prefix = "PRAGMA \"" + schema.replace("\"", "\"\"") + "\".";
+                st.execute(prefix + "synchronous = " + synchronous);
+                // negative cache_size is in KiB rather than pages
+                st.execute(prefix + "cache_size = -" + cacheSizeKib);
+                st.execute(prefix + "mmap_size = " + mmapSizeBytes);
+            }
+            if (writer) {
+                st.execute("PRAGMA wal_autocheckpoint = " + walAutocheckpointPages);
+            } else {
+                st.execute("PRAGMA query_only = ON");
+            }
+        }
+    }
+
+    // main plus attached databases; temp is private to the connection
+    private static List<String> attachedSchemas(Statement st) throws SQLException {
+        List<String> schemas = new ArrayList<>();
+        try (ResultSet rs = st.executeQuery("PRAGMA database_list")) {
+            while (rs.next()) {
+                String name = rs.getString(2);
+                if (!"temp".equalsIgnoreCase(name)) {
+                    schemas.add(name);
+                }
+            }
+        }
+        return schemas;
+    }
+
+    /**
+     * Run a WAL checkpoint on the given connection. PASSIVE never blocks
+     * readers or writers; TRUNCATE also resets the WAL file and is used on
+     * shutdown.
+     *
+     * @param connection writer connection
+     * @param truncate   true for TRUNCATE, false for PASSIVE
+     * @throws SQLException if the checkpoint fails
+     */
+    public void checkpoint(Connection connection, boolean truncate) throws SQLException {
+        if (!isWal()) {
+            return;
+        }
+        try (Statement st = connection.createStatement()) {
+            st.execute("PRAGMA wal_checkpoint(" + (truncate ? "TRUNCATE" : "PASSIVE") + ")");
+        }
+    }
+
+    /** @return true if the profile uses write-ahead logging */
+    public boolean isWal() {
+        return "WAL".equals(journalMode);
+    }
+
+    /** @return seconds between background passive checkpoints (0 disables) */
+    public int getCheckpointIntervalSeconds() {
+        return checkpointIntervalSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "journal_mode=" + journalMode + " synchronous=" + synchronous + " mmap_size=" + mmapSizeBytes
+                + " cache_size=-" + cacheSizeKib + " temp_store=" + tempStore + " busy_timeout=" + busyTimeoutMs
+                + " wal_autocheckpoint=" + walAutocheckpointPages;
+    }
+}
@@ -0,0 +1,305 @@
+package database;
+
+import util.RollingFileLog;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in log of slow SQL statements. Enabled by setting
+ * {@code clims.db.slowQueryMs} to a threshold in milliseconds (default 0,
+ * off); when off, statements are not wrapped at all.
+ *
+ * When on, every prepared statement handed out by the pool is wrapped. A
+ * query is timed from execute until its result set is exhausted or closed,
+ * so the time includes stepping through the rows. Statements at or over the
+ * threshold are appended to {@code clims.db.slowQueryLog} (default
+ * lib/logs/slow-queries.log, rolled over at 1 MB) with the SQL text, the
+ * bind-parameter shape (types and string lengths, never the values), the
+ * rows returned or changed and the elapsed time. The first time a SQL text is
+ * slow its {@code EXPLAIN QUERY PLAN} is captured too, with full table scans
+ * marked.
+ */
+final class SlowQueryLog {
+    private static final long THRESHOLD_MS = Math.max(0, Long.getLong("clims.db.slowQueryMs", 0L));
+    private static final long THRESHOLD_NANOS = THRESHOLD_MS * 1_000_000;
+    private static final String LOG_FILE = System.getProperty("clims.db.slowQueryLog", "lib/logs/slow-queries.log");
+    private static final long LOG_MAX_BYTES = 1024 * 1024;
+    // distinct SQL texts remembered for their slow count; beyond this, plans may be repeated
+    private static final int MAX_TRACKED_SQL = 1000;
+    private static final DateTimeFormatter LOG_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private static final RollingFileLog LOG = THRESHOLD_MS > 0 ? new RollingFileLog(LOG_FILE, LOG_MAX_BYTES, 3)
+            : null;
+    // SQL text -> times it was slow
+    private static final Map<String, AtomicInteger> slowSql = new ConcurrentHashMap<>();
+    private static final AtomicLong slowCount = new AtomicLong();
+
+    private SlowQueryLog() {
+    }
+
+    /** @return whether statements are being timed */
+    static boolean isEnabled() {
+        return THRESHOLD_MS > 0;
+    }
+
+    /**
+     * Wrap a statement so its executions are timed, or return it unchanged
+     * when the log is off.
+     *
+     * @param statement statement to wrap (cached or not)
+     * @param sql       its SQL text
+     * @param physical  physical connection it belongs to, used for EXPLAIN
+     * @return the statement to hand to the caller
+     */
+    static PreparedStatement wrap(PreparedStatement statement, String sql, Connection physical) {
+        if (!isEnabled()) {
+            return statement;
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new TimedStatementHandler(statement, sql, physical));
+    }
+
+    /**
+     * One-line summary of the slow-query counters, suitable for logging.
+     *
+     * @return human-readable summary
+     */
+    static String describeStats() {
+        if (!isEnabled()) {
+            return "off (set clims.db.slowQueryMs)";
+        }
+        return "threshold=" + THRESHOLD_MS + "ms slow=" + slowCount.get() + " statements=" + slowSql.size();
+    }
+
+    private static void record(String sql, String params, long executeNanos, long totalNanos, String rows,
+            Connection physical) {
+        if (totalNanos < THRESHOLD_NANOS) {
+            return;
+        }
+        slowCount.incrementAndGet();
+        AtomicInteger seen = slowSql.get(sql);
+        if (seen == null && slowSql.size() < MAX_TRACKED_SQL) {
+            seen = slowSql.computeIfAbsent(sql, s -> new AtomicInteger());
+        }
+        int times = seen == null ? 1 : seen.incrementAndGet();
+
+        StringBuilder out = new StringBuilder();
+        out.append(LocalDateTime.now().format(LOG_TIME))
+                .append(String.format(Locale.ROOT, " slow query: %.1f ms (execute %.1f ms), %s, thread %s%n",
+                        totalNanos / 1e6, executeNanos / 1e6, rows, Thread.currentThread().getName()))
+                .append("  sql:    ").append(sql).append(System.lineSeparator())
+                .append("  params: ").append(params.isEmpty() ? "none" : params).append(System.lineSeparator());
+        if (times == 1) {
+            out.append("  plan:").append(System.lineSeparator()).append(explain(sql, physical));
+        } else {
+            out.append("  plan:   logged with its first slow run (slow ").append(times).append(" times)")
+                    .append(System.lineSeparator());
+        }
+        LOG.append(out.toString());
+    }
+
+    /*
+     * EXPLAIN QUERY PLAN of a statement on the connection that ran it, so the
+     * attached archive is visible too. Parameters are left unbound, which
+     * SQLite plans as NULL; index choice does not depend on their values.
+     */
+    private static String explain(String sql, Connection physical) {
+        StringBuilder plan = new StringBuilder();
+        Map<Integer, Integer> depth = new HashMap<>();
+        try (PreparedStatement ps = physical.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+                ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int level = depth.getOrDefault(rs.getInt(2), 0) + 1;
+                depth.put(rs.getInt(1), level);
+                String detail = rs.getString(4);
+                plan.append("    ");
+                for (int i = 1; i < level; i++) {
+                    plan.append("  ");
+                }
+                plan.append(detail);
+                if (detail.startsWith("SCAN ") && !detail.contains(" USING ")) {
+                    plan.append("   <-- full table scan");
+                }
+                plan.append(System.lineSeparator());
+            }
+            if (depth.isEmpty()) {
+                plan.append("    (no table lookups)").append(System.lineSeparator());
+            }
+        } catch (SQLException e) {
+            plan.append("    (not available: ").append(e.getMessage()).append(')').append(System.lineSeparator());
+        }
+        return plan.toString();
+    }
+
+    // short type of a bind value: int, text(12), null, ...
+    private static String shapeOf(Method setter, Object[] args) {
+        Object value = args.length > 1 ? args[1] : null;
+        if (value == null || "setNull".equals(setter.getName())) {
+            return "null";
+        }
+        if (value instanceof String) {
+            return "text(" + ((String) value).length() + ")";
+        }
+        if (value instanceof byte[]) {
+            return "blob(" + ((byte[]) value).length + ")";
+        }
+        String type = setter.getName().substring(3).toLowerCase(Locale.ROOT);
+        return "object".equals(type) ? value.getClass().getSimpleName().toLowerCase(Locale.ROOT) : type;
+    }
+
+    /*
+     * Times execute calls and records the bind-parameter shape. Queries are
+     * finished when their result set is; updates and batches right away.
+     */
+    private static final class TimedStatementHandler implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final String sql;
+        private final Connection physical;
+        private String[] shape = new String[0];
+        private int batched;
+
+        TimedStatementHandler(PreparedStatement statement, String sql, Connection physical) {
+            this.statement = statement;
+            this.sql = sql;
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                int index = (Integer) args[0];
+                if (index > shape.length) {
+                    shape = Arrays.copyOf(shape, index);
+                }
+                shape[index - 1] = shapeOf(method, args);
+            } else if ("clearParameters".equals(name)) {
+                shape = new String[0];
+            } else if ("addBatch".equals(name) && args == null) {
+                batched++;
+            } else if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            boolean execute = name.startsWith("execute") && (args == null || args.length == 0);
+            long start = execute ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (!execute) {
+                return result;
+            }
+            long executeNanos = System.nanoTime() - start;
+            if (result instanceof ResultSet) {
+                return Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                        new TimedResultSetHandler((ResultSet) result, sql, describeShape(), start, executeNanos,
+                                physical));
+            }
+            String rows;
+            if (result instanceof int[]) {
+                long total = 0;
+                for (int n : (int[]) result) {
+                    total += Math.max(n, 0);
+                }
+                rows = batched + " batched, " + total + " rows changed";
+                batched = 0;
+            } else if (result instanceof Number) {
+                rows = result + " rows changed";
+            } else {
+                rows = "execute";
+            }
+            record(sql, describeShape(), executeNanos, executeNanos, rows, physical);
+            return result;
+        }
+
+        private String describeShape() {
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < shape.length; i++) {
+                if (out.length() > 0) {
+                    out.append(' ');
+                }
+                out.append('?').append(i + 1).append('=').append(shape[i] == null ? "unset" : shape[i]);
+            }
+            return out.toString();
+        }
+    }
+
+    /*
+     * Counts rows and records the query once the result set is exhausted or
+     * closed, whichever comes first.
+     */
+    private static final class TimedResultSetHandler implements InvocationHandler {
+        private final ResultSet rs;
+        private final String sql;
+        private final String params;
+        private final long start;
+        private final long executeNanos;
+        private final Connection physical;
+        private long rows;
+        private boolean recorded;
+
+        TimedResultSetHandler(ResultSet rs, String sql, String params, long start, long executeNanos,
+                Connection physical) {
+            this.rs = rs;
+            this.sql = sql;
+            this.params = params;
+            this.start = start;
+            this.executeNanos = executeNanos;
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            Object result;
+            try {
+                result = method.invoke(rs, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if ("next".equals(name)) {
+                if ((Boolean) result) {
+                    rows++;
+                } else {
+                    finish();
+                }
+            } else if ("close".equals(name)) {
+                finish();
+            }
+            return result;
+        }
+
+        private void finish() {
+            if (!recorded) {
+                recorded = true;
+                record(sql, params, executeNanos, System.nanoTime() - start, rows + " rows returned", physical);
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-connection cache of prepared statements keyed by SQL text, with LRU
+ * eviction. Since the pool keeps connections open for the lifetime of the app,
+ * caching the statements means SQLite parses and plans each DAO query once
+ * instead of on every call.
+ *
+ * Callers get a proxy whose {@code close()} clears the parameters and hands the
+ * statement back to the cache instead of finalizing it. If the same SQL is
+ * requested again while the cached statement is still open (nested use on one
+ * connection), an uncached statement is prepared instead.
+ */
+final class StatementCache {
+    private static final int CAPACITY = Math.max(1, Integer.getInteger("clims.db.statementCacheSize", 64));
+
+    // Global counters across all connections
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private final Connection physical;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= CAPACITY) {
+                return false;
+            }
+            evictions.incrementAndGet();
+            eldest.getValue().evict();
+            return true;
+        }
+    };
+
+    StatementCache(Connection physical) {
+        this.physical = physical;
+    }
+
+    /**
+     * Return a cached statement for the SQL, preparing it on a miss.
+     *
+     * @param sql statement text
+     * @return a statement proxy; closing it returns it to the cache
+     * @throws SQLException if preparing fails
+     */
+    synchronized PreparedStatement prepare(String sql) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry != null && !entry.inUse) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            PreparedStatement statement = physical.prepareStatement(sql);
+            if (entry != null) {
+                // already checked out: hand out a one-off statement
+                return statement;
+            }
+            entry = new Entry(statement);
+            entries.put(sql, entry);
+        }
+        entry.inUse = true;
+        return entry.checkout();
+    }
+
+    /**
+     * Close every cached statement. Called when the physical connection is
+     * discarded.
+     */
+    synchronized void closeAll() {
+        for (Entry entry : entries.values()) {
+            entry.evict();
+        }
+        entries.clear();
+    }
+
+    private synchronized void checkin(Entry entry) {
+        entry.inUse = false;
+        if (entry.evicted) {
+            closeQuietly(entry.statement);
+            return;
+        }
+        try {
+            entry.statement.clearParameters();
+        } catch (SQLException e) {
+            // a statement we can't reset is no use to the next caller
+            entries.values().remove(entry);
+            closeQuietly(entry.statement);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /** @return statements served from the cache */
+    static long getHitCount() {
+        return hits.get();
+    }
+
+    /** @return statements that had to be prepared */
+    static long getMissCount() {
+        return misses.get();
+    }
+
+    /** @return statements dropped by LRU eviction */
+    static long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * One-line summary of the cache counters, suitable for logging.
+     *
+     * @return human-readable cache summary
+     */
+    static String describeStats() {
+        long h = hits.get();
+        long m = misses.get();
+        double ratio = h + m == 0 ? 0 : 100.0 * h / (h + m);
+        return String.format("hits=%d misses=%d evictions=%d hitRatio=%.1f%%", h, m, evictions.get(), ratio);
+    }
+
+    private final class Entry {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly(statement);
+            }
+        }
+
+        PreparedStatement checkout() {
+            return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new CachedStatementHandler(this));
+        }
+    }
+
+    /*
+     * Forwards every call to the cached statement except close(), which checks
+     * it back in. Each checkout gets its own handler so a stale proxy can't
+     * touch a statement that has been handed to someone else.
+     */
+    private final class CachedStatementHandler implements InvocationHandler {
+        private final Entry entry;
+        private boolean closed;
+
+        CachedStatementHandler(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        checkin(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
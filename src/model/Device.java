@@ -11,6 +11,7 @@ public class Device {
     private String brand;
     private String model;
     private String status;
+    private DeviceStatus deviceStatus;
     private String location;
     private String purchaseDate;
     private String notes;
@@ -19,6 +20,26 @@ public class Device {
     public Device() {
     }
 
+    /**
+     * Create a copy of another device, so cached instances can be handed out
+     * without callers mutating the cache.
+     *
+     * @param other device to copy
+     */
+    public Device(Device other) {
+        this.id = other.id;
+        this.deviceNumber = other.deviceNumber;
+        this.type = other.type;
+        this.brand = other.brand;
+        this.model = other.model;
+        this.status = other.status;
+        this.deviceStatus = other.deviceStatus;
+        this.location = other.location;
+        this.purchaseDate = other.purchaseDate;
+        this.notes = other.notes;
+        this.cost = other.cost;
+    }
+
     /**
      * Create an empty Device instance. Fields may be populated later via setters.
      */
@@ -125,12 +146,24 @@ public class Device {
     }
 
     /**
-     * Set the device status.
+     * Set the device status. The string is parsed to a {@link DeviceStatus}
+     * here, once, for {@link #getDeviceStatus()}.
      *
      * @param status status string
      */
     public void setStatus(String status) {
         this.status = status;
+        this.deviceStatus = DeviceStatus.parse(status);
+    }
+
+    /**
+     * Get the parsed device status.
+     *
+     * @return status constant, or null if the status string is not a known
+     *         status
+     */
+    public DeviceStatus getDeviceStatus() {
+        return deviceStatus;
     }
 
     /**
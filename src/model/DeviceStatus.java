@@ -0,0 +1,83 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The statuses a device can have, with the label stored in the database.
+ * Status strings are parsed once (see {@link Device#setStatus(String)}) so
+ * filters and renderers compare enum constants instead of strings.
+ */
+public enum DeviceStatus {
+    NEW("New"),
+    OLD("Old"),
+    IN_USE("In Use", "in-use"),
+    REPAIRED("Repaired"),
+    UNDER_MAINTENANCE("Under Maintenance", "under_maintenance"),
+    DISPOSED("Disposed"),
+    MISSING("Missing"),
+    BROKEN("Broken");
+
+    private static final Map<String, DeviceStatus> BY_NAME = new HashMap<>();
+
+    static {
+        for (DeviceStatus status : values()) {
+            BY_NAME.put(status.label.toLowerCase(Locale.ROOT), status);
+            for (String alias : status.aliases) {
+                BY_NAME.put(alias, status);
+            }
+        }
+    }
+
+    private final String label;
+    private final String[] aliases;
+
+    DeviceStatus(String label, String... aliases) {
+        this.label = label;
+        this.aliases = aliases;
+    }
+
+    /**
+     * Get the label shown to users and stored in the database.
+     *
+     * @return status label (e.g. "In Use")
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+
+    /**
+     * Map a status string to its constant, ignoring case and surrounding
+     * whitespace and accepting the older spellings ("in-use",
+     * "under_maintenance").
+     *
+     * @param status status string, may be null
+     * @return matching status, or null if the string is not a known status
+     */
+    public static DeviceStatus parse(String status) {
+        if (status == null) {
+            return null;
+        }
+        return BY_NAME.get(status.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Get the labels of every status in declaration order, e.g. for a combo box.
+     *
+     * @return status labels
+     */
+    public static String[] labels() {
+        DeviceStatus[] all = values();
+        String[] labels = new String[all.length];
+        for (int i = 0; i < all.length; i++) {
+            labels[i] = all[i].label;
+        }
+        return labels;
+    }
+}
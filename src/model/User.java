@@ -102,4 +102,13 @@ public class User {
     public void setRole(String role) {
         this.role = role;
     }
+
+    /**
+     * Whether the user has the admin role.
+     *
+     * @return true for admins
+     */
+    public boolean isAdmin() {
+        return "admin".equalsIgnoreCase(role);
+    }
 }
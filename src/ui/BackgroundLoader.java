@@ -0,0 +1,184 @@
+package ui;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs DAO work for a screen on a background thread and hands the result back
+ * on the Event Dispatch Thread, so a slow disk never freezes the window.
+ *
+ * Each request has a key. Starting a new request with the same key makes any
+ * earlier one stale: it is cancelled if it hasn't started yet, and otherwise
+ * its result is dropped when it arrives, so double clicks and rapid refreshes
+ * only ever apply the latest answer. While any request is running the
+ * optional busy indicator is shown.
+ *
+ * Page, count and search loads share a small thread pool. Long bulk jobs such
+ * as CSV exports and imports go through {@link #loadBulk} instead, which runs
+ * them on threads of their own so they never hold up those loads.
+ *
+ * All methods must be called on the EDT.
+ */
+public final class BackgroundLoader {
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Integer.getInteger("clims.ui.loaderThreads", 2)), r -> {
+                Thread t = new Thread(r, "clims-ui-loader-" + THREAD_IDS.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+    // threads are created per running bulk job and reclaimed once idle
+    private static final ExecutorService BULK_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "clims-ui-bulk-" + THREAD_IDS.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final JComponent busyIndicator;
+    private final Map<String, Integer> generations = new HashMap<>();
+    private final Map<String, CompletableFuture<?>> pending = new HashMap<>();
+    private int running;
+    private boolean disposed;
+
+    /**
+     * Create a loader for one screen.
+     *
+     * @param busyIndicator component made visible while work is running (may be
+     *                      null)
+     */
+    public BackgroundLoader(JComponent busyIndicator) {
+        this.busyIndicator = busyIndicator;
+        if (busyIndicator != null) {
+            busyIndicator.setVisible(false);
+        }
+    }
+
+    /**
+     * Run {@code work} off the EDT and pass its result to {@code onSuccess} on
+     * the EDT, unless a newer request with the same key was started meanwhile.
+     *
+     * @param key       request key; a new request supersedes older ones with the
+     *                  same key
+     * @param work      background work (typically DAO calls)
+     * @param onSuccess receives the result on the EDT
+     * @param <T>       result type
+     */
+    public <T> void load(String key, Callable<T> work, Consumer<T> onSuccess) {
+        load(key, work, onSuccess, error -> System.out
+                .println("Background load error (" + key + "): " + error.getMessage()));
+    }
+
+    /**
+     * Like {@link #load(String, Callable, Consumer)}, with a callback for
+     * failures so the screen can recover (e.g. re-enable a button).
+     *
+     * @param key       request key; a new request supersedes older ones with the
+     *                  same key
+     * @param work      background work (typically DAO calls)
+     * @param onSuccess receives the result on the EDT
+     * @param onError   receives the failure cause on the EDT
+     * @param <T>       result type
+     */
+    public <T> void load(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        submit(key, work, onSuccess, onError, EXECUTOR);
+    }
+
+    /**
+     * Like {@link #load(String, Callable, Consumer, Consumer)}, for a long bulk
+     * job (export, import) that must not occupy the threads shared by every
+     * screen's page and search loads.
+     *
+     * @param key       request key; a new request supersedes older ones with the
+     *                  same key
+     * @param work      background work
+     * @param onSuccess receives the result on the EDT
+     * @param onError   receives the failure cause on the EDT
+     * @param <T>       result type
+     */
+    public <T> void loadBulk(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        submit(key, work, onSuccess, onError, BULK_EXECUTOR);
+    }
+
+    private <T> void submit(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError,
+            ExecutorService executor) {
+        int generation = cancelInternal(key);
+        setRunning(running + 1);
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return work.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, executor);
+        pending.put(key, future);
+        future.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            setRunning(running - 1);
+            if (disposed || generations.get(key) != generation) {
+                return; // superseded, cancelled or screen closed
+            }
+            pending.remove(key);
+            if (error != null) {
+                // unwrap CompletionException and our IllegalStateException wrapper
+                Throwable cause = error;
+                while (cause.getCause() != null
+                        && (cause instanceof java.util.concurrent.CompletionException
+                                || cause instanceof IllegalStateException)) {
+                    cause = cause.getCause();
+                }
+                onError.accept(cause);
+                return;
+            }
+            onSuccess.accept(result);
+        }));
+    }
+
+    /**
+     * Mark every outstanding request for the key as stale.
+     *
+     * @param key request key to cancel
+     */
+    public void cancel(String key) {
+        cancelInternal(key);
+    }
+
+    private int cancelInternal(String key) {
+        CompletableFuture<?> previous = pending.remove(key);
+        if (previous != null) {
+            // only prevents work that hasn't started; running work is discarded
+            previous.cancel(false);
+        }
+        return generations.merge(key, 1, Integer::sum);
+    }
+
+    /**
+     * Cancel and drop all outstanding requests; call when the screen is closed.
+     */
+    public void dispose() {
+        disposed = true;
+        for (CompletableFuture<?> future : pending.values()) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    /**
+     * @return true while any request started by this loader is running
+     */
+    public boolean isBusy() {
+        return running > 0;
+    }
+
+    private void setRunning(int count) {
+        running = count;
+        if (busyIndicator != null) {
+            busyIndicator.setVisible(running > 0);
+        }
+    }
+}
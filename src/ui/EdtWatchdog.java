@@ -0,0 +1,373 @@
+package ui;
+
+import util.MetricsRegistry;
+import util.RollingFileLog;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches the Event Dispatch Thread for stalls: events whose handler keeps
+ * the EDT busy longer than {@code clims.edt.stallMs} milliseconds (default
+ * 250, 0 disables the watchdog), which the user sees as a frozen window.
+ *
+ * A monitoring {@link EventQueue} is pushed in front of the system queue. It
+ * times every dispatched event into the "EDT.dispatch" metric, and a daemon
+ * thread samples it several times per threshold. When an event runs past the
+ * threshold its EDT stack is captured and written to
+ * {@code clims.edt.log} (default lib/logs/edt-stalls.log, rolled over at
+ * 1 MB) with the call site, the outermost application frame on the stack, and
+ * how many stalls that site has caused so far. A second line records the full
+ * duration once the event finishes, and a per-site summary is written on
+ * shutdown. A probe event posted every second measures how long input waits
+ * before the EDT gets to it ("EDT.queueDelay").
+ *
+ * Time a handler spends inside a modal dialog's nested event loop is not
+ * counted as a stall: only the stretches where the EDT is actually running
+ * the handler are.
+ */
+public final class EdtWatchdog {
+    private static final long STALL_MS = Math.max(0, Long.getLong("clims.edt.stallMs", 250L));
+    private static final String LOG_FILE = System.getProperty("clims.edt.log", "lib/logs/edt-stalls.log");
+    private static final long LOG_MAX_BYTES = 1024 * 1024;
+    private static final int MAX_FRAMES = 40;
+    private static final long PROBE_MS = 1000;
+    private static final DateTimeFormatter LOG_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    // frames of these packages are not call sites
+    private static final String[] PLATFORM_PREFIXES = { "java.", "javax.", "sun.", "jdk.", "com.sun.", "org.sqlite.",
+            "ui.EdtWatchdog" };
+
+    private static final EdtWatchdog INSTANCE = new EdtWatchdog();
+
+    private ScheduledExecutorService sampler; // guarded by this
+    private RollingFileLog log; // guarded by this
+    private final long stallNanos = TimeUnit.MILLISECONDS.toNanos(STALL_MS);
+
+    // Current run of the EDT, written by the EDT and sampled by the watchdog.
+    // A run starts when an event is dispatched or a nested event loop returns
+    // to its handler, and ends when the event finishes or the EDT waits for
+    // the next event. runStart is 0 while the EDT is idle.
+    private volatile Thread edt;
+    private volatile long runStart;
+    private volatile long runSeq;
+    private volatile AWTEvent runEvent;
+
+    // run reported as stalled, and its length once the EDT finishes it
+    private volatile long stalledSeq = -1;
+    private volatile long stalledNanos;
+
+    // owned by the watchdog thread
+    private Stall activeStall;
+    private long lastProbeNanos;
+
+    private final AtomicLong stallCount = new AtomicLong();
+    private final AtomicLong worstStallNanos = new AtomicLong();
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+    private EdtWatchdog() {
+    }
+
+    /**
+     * Get the shared watchdog.
+     *
+     * @return application-wide watchdog
+     */
+    public static EdtWatchdog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Install the monitoring event queue and start sampling. Does nothing if
+     * already started or if {@code clims.edt.stallMs} is 0.
+     */
+    public synchronized void start() {
+        if (sampler != null || STALL_MS == 0) {
+            return;
+        }
+        log = new RollingFileLog(LOG_FILE, LOG_MAX_BYTES, 3);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new MonitoringQueue());
+        sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "clims-edt-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(10, STALL_MS / 4);
+        sampler.scheduleAtFixedRate(this::sampleSafely, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop sampling and append a summary of the stalls per call site to the
+     * log. The monitoring queue stays installed but is no longer sampled.
+     */
+    public synchronized void shutdown() {
+        if (sampler == null) {
+            return;
+        }
+        sampler.shutdownNow();
+        sampler = null;
+        if (stallCount.get() > 0) {
+            log.append(describeSites());
+        }
+    }
+
+    /** @return number of stalls detected since startup */
+    public long getStallCount() {
+        return stallCount.get();
+    }
+
+    /**
+     * @return one-line summary: stall count, worst stall and the call site
+     *         with the most stall time
+     */
+    public String describeStats() {
+        Site worstSite = null;
+        for (Site site : sites.values()) {
+            if (worstSite == null || site.totalNanos.get() > worstSite.totalNanos.get()) {
+                worstSite = site;
+            }
+        }
+        return String.format(Locale.ROOT, "stalls=%d worst=%.0fms threshold=%dms%s", stallCount.get(),
+                worstStallNanos.get() / 1e6, STALL_MS, worstSite == null ? "" : " top=" + worstSite.name);
+    }
+
+    /*
+     * Call sites sorted by total stall time, as log text.
+     */
+    private String describeSites() {
+        List<Site> list = new ArrayList<>(sites.values());
+        list.sort((a, b) -> Long.compare(b.totalNanos.get(), a.totalNanos.get()));
+        StringBuilder out = new StringBuilder();
+        out.append(LocalDateTime.now().format(LOG_TIME)).append(" EDT stalls by call site (").append(stallCount.get())
+                .append(" stalls)").append(System.lineSeparator());
+        for (Site site : list) {
+            out.append(String.format(Locale.ROOT, "  %5d stalls %,10.0f ms total %,8.0f ms worst  %s%n",
+                    site.count.get(), site.totalNanos.get() / 1e6, site.worstNanos.get() / 1e6, site.name));
+        }
+        return out.toString();
+    }
+
+    // --- EDT side --------------------------------------------------------------
+
+    private void beginRun(long now, AWTEvent event) {
+        runEvent = event;
+        runSeq = runSeq + 1; // only the EDT writes it
+        runStart = now;
+    }
+
+    private void endRun(long now) {
+        long start = runStart;
+        if (start == 0) {
+            return;
+        }
+        runStart = 0;
+        if (runSeq == stalledSeq) {
+            stalledNanos = now - start;
+        }
+    }
+
+    /*
+     * Event queue that brackets every dispatch. Nested dispatches happen while
+     * a modal dialog or SecondaryLoop pumps events from inside a handler; the
+     * handler's own run is paused meanwhile and resumed as a new run.
+     */
+    private final class MonitoringQueue extends EventQueue {
+        private int depth; // EDT only
+        private long nestedNanos; // EDT only: time of the current dispatch spent in nested loops
+
+        @Override
+        public AWTEvent getNextEvent() throws InterruptedException {
+            if (depth == 0) {
+                return super.getNextEvent();
+            }
+            // a nested loop waits for input: the handler below is not running
+            long waitStart = System.nanoTime();
+            endRun(waitStart);
+            try {
+                return super.getNextEvent();
+            } finally {
+                nestedNanos += System.nanoTime() - waitStart;
+            }
+        }
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            long start = System.nanoTime();
+            if (depth == 0) {
+                edt = Thread.currentThread();
+            } else {
+                endRun(start);
+            }
+            long outerNested = nestedNanos;
+            nestedNanos = 0;
+            depth++;
+            beginRun(start, event);
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                long end = System.nanoTime();
+                endRun(end);
+                depth--;
+                MetricsRegistry.record("EDT.dispatch", end - start - nestedNanos);
+                nestedNanos = outerNested;
+                if (depth > 0) {
+                    // back in the enclosing handler
+                    nestedNanos += end - start;
+                    beginRun(end, null);
+                }
+            }
+        }
+    }
+
+    // --- Watchdog side ---------------------------------------------------------
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            System.out.println("EDT watchdog error: " + e.getMessage());
+        }
+    }
+
+    private void sample() {
+        long now = System.nanoTime();
+        if (now - lastProbeNanos >= TimeUnit.MILLISECONDS.toNanos(PROBE_MS)) {
+            lastProbeNanos = now;
+            EventQueue.invokeLater(
+                    () -> MetricsRegistry.record("EDT.queueDelay", System.nanoTime() - now));
+        }
+
+        if (activeStall != null && runSeq != activeStall.seq) {
+            finish(activeStall);
+            activeStall = null;
+        }
+        long start = runStart;
+        long seq = runSeq;
+        Thread thread = edt;
+        if (start == 0 || thread == null || now - start < stallNanos || activeStall != null) {
+            return;
+        }
+        stalledNanos = 0;
+        stalledSeq = seq;
+        StackTraceElement[] stack = thread.getStackTrace();
+        if (runSeq != seq) {
+            return; // finished while we looked; too late for a useful stack
+        }
+        AWTEvent event = runEvent;
+        Stall stall = new Stall(seq, now - start, applicationFrame(stack, true));
+        activeStall = stall;
+        stallCount.incrementAndGet();
+        Site site = sites.computeIfAbsent(stall.site, Site::new);
+        site.count.incrementAndGet();
+
+        StringBuilder out = new StringBuilder();
+        out.append(LocalDateTime.now().format(LOG_TIME))
+                .append(String.format(Locale.ROOT, " EDT stall #%d: blocked %d ms so far (threshold %d ms)%n",
+                        stallCount.get(), TimeUnit.NANOSECONDS.toMillis(stall.detectedNanos), STALL_MS))
+                .append("  event: ").append(describe(event)).append(System.lineSeparator())
+                .append("  site:  ").append(stall.site)
+                .append(String.format(Locale.ROOT, " (stall %d at this site)%n", site.count.get()))
+                .append("  in:    ").append(applicationFrame(stack, false)).append(System.lineSeparator());
+        for (int i = 0; i < Math.min(stack.length, MAX_FRAMES); i++) {
+            out.append("    at ").append(stack[i]).append(System.lineSeparator());
+        }
+        if (stack.length > MAX_FRAMES) {
+            out.append("    ... ").append(stack.length - MAX_FRAMES).append(" more").append(System.lineSeparator());
+        }
+        writeLog(out.toString());
+    }
+
+    private void finish(Stall stall) {
+        long nanos = stalledSeq == stall.seq && stalledNanos > 0 ? stalledNanos : stall.detectedNanos;
+        Site site = sites.get(stall.site);
+        site.totalNanos.addAndGet(nanos);
+        site.worstNanos.accumulateAndGet(nanos, Math::max);
+        worstStallNanos.accumulateAndGet(nanos, Math::max);
+        writeLog(String.format(Locale.ROOT, "%s EDT stall at %s ended after %d ms%n",
+                LocalDateTime.now().format(LOG_TIME), stall.site, TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+
+    private synchronized void writeLog(String text) {
+        if (log != null) {
+            log.append(text);
+        }
+    }
+
+    /*
+     * Application frame of a stack: the outermost one is the handler that ran
+     * on the EDT, which is where the blocking work has to be moved out of; the
+     * innermost one shows what it was waiting on. Falls back to the top frame
+     * when no application code is on the stack.
+     */
+    private static String applicationFrame(StackTraceElement[] stack, boolean outermost) {
+        StackTraceElement found = null;
+        for (StackTraceElement frame : stack) {
+            if (!isPlatform(frame.getClassName())) {
+                found = frame;
+                if (!outermost) {
+                    break;
+                }
+            }
+        }
+        if (found == null) {
+            return stack.length > 0 ? stack[0].toString() : "unknown";
+        }
+        return found.getClassName() + "." + found.getMethodName() + "(" + found.getFileName() + ":"
+                + found.getLineNumber() + ")";
+    }
+
+    private static boolean isPlatform(String className) {
+        if (className.contains("$$Lambda")) {
+            return true; // generated lambda class; its name changes from run to run
+        }
+        for (String prefix : PLATFORM_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(AWTEvent event) {
+        if (event == null) {
+            return "handler resumed after a nested event loop";
+        }
+        Object source = event.getSource();
+        return event.getClass().getName() + " (id " + event.getID() + ") on "
+                + (source == null ? "null" : source.getClass().getName());
+    }
+
+    private static final class Stall {
+        final long seq;
+        final long detectedNanos;
+        final String site;
+
+        Stall(long seq, long detectedNanos, String site) {
+            this.seq = seq;
+            this.detectedNanos = detectedNanos;
+            this.site = site;
+        }
+    }
+
+    private static final class Site {
+        final String name;
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong worstNanos = new AtomicLong();
+
+        Site(String name) {
+            this.name = name;
+        }
+    }
+}
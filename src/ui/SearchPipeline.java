@@ -0,0 +1,151 @@
+package ui;
+
+import javax.swing.*;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Turns keystrokes in a search box into background searches.
+ *
+ * Changes are debounced: the search runs once the text has been quiet for the
+ * delay ({@code clims.ui.searchDelayMs}, default 150 ms). The search itself
+ * runs on the screen's {@link BackgroundLoader}, so a newer query supersedes
+ * one still running and stale results are never shown. When the new query
+ * only extends the last one that completed (more characters typed), the last
+ * result is passed to the search so it can be narrowed instead of recomputed.
+ * Results are tagged with the data version they were computed under, which
+ * {@link #rerun} bumps, so a search still running when the data changed is
+ * never narrowed from.
+ *
+ * All methods must be called on the EDT.
+ *
+ * @param <R> search result type
+ */
+public final class SearchPipeline<R> {
+    /** Default debounce window in milliseconds. */
+    public static final int DEFAULT_DELAY_MS = Integer.getInteger("clims.ui.searchDelayMs", 150);
+
+    /**
+     * Background search step.
+     *
+     * @param <R> search result type
+     */
+    public interface Search<R> {
+        /**
+         * Run a search off the EDT.
+         *
+         * @param query      non-blank search text
+         * @param narrowFrom result of a query that this one extends, or null to
+         *                   search everything
+         * @return the result
+         * @throws Exception if the search fails
+         */
+        R search(String query, R narrowFrom) throws Exception;
+    }
+
+    private final BackgroundLoader loader;
+    private final String key;
+    private final Search<R> search;
+    private final Consumer<R> onResult;
+    private final Timer timer;
+    private String pendingQuery = "";
+    private String lastQuery;
+    private R lastResult;
+    // bumped by rerun(); results computed under an older version are not kept
+    private int dataVersion;
+
+    /**
+     * Create a pipeline with the default debounce window.
+     *
+     * @param loader   loader of the owning screen
+     * @param key      loader key used for the searches
+     * @param search   background search
+     * @param onResult receives each current result on the EDT; null means the
+     *                 query is blank and nothing should be filtered
+     */
+    public SearchPipeline(BackgroundLoader loader, String key, Search<R> search, Consumer<R> onResult) {
+        this(loader, key, DEFAULT_DELAY_MS, search, onResult);
+    }
+
+    /**
+     * Create a pipeline.
+     *
+     * @param loader   loader of the owning screen
+     * @param key      loader key used for the searches
+     * @param delayMs  debounce window in milliseconds
+     * @param search   background search
+     * @param onResult receives each current result on the EDT; null means the
+     *                 query is blank and nothing should be filtered
+     */
+    public SearchPipeline(BackgroundLoader loader, String key, int delayMs, Search<R> search, Consumer<R> onResult) {
+        this.loader = loader;
+        this.key = key;
+        this.search = search;
+        this.onResult = onResult;
+        this.timer = new Timer(Math.max(0, delayMs), e -> run());
+        this.timer.setRepeats(false);
+    }
+
+    /**
+     * Report new search text; the search starts after the debounce window.
+     *
+     * @param text current search box text
+     */
+    public void queryChanged(String text) {
+        pendingQuery = text == null ? "" : text;
+        timer.restart();
+    }
+
+    /**
+     * Search the current text again from scratch, e.g. after the searched data
+     * changed. Does nothing while the query is blank.
+     */
+    public void rerun() {
+        dataVersion++;
+        lastQuery = null;
+        lastResult = null;
+        if (!normalize(pendingQuery).isEmpty()) {
+            timer.restart();
+        }
+    }
+
+    /**
+     * @return true when the current query is blank
+     */
+    public boolean isBlank() {
+        return normalize(pendingQuery).isEmpty();
+    }
+
+    /**
+     * Stop the debounce timer and drop any running search.
+     */
+    public void dispose() {
+        timer.stop();
+        loader.cancel(key);
+    }
+
+    private void run() {
+        String query = normalize(pendingQuery);
+        if (query.isEmpty()) {
+            loader.cancel(key);
+            lastQuery = null;
+            lastResult = null;
+            onResult.accept(null);
+            return;
+        }
+        // typing more only ever removes matches, so the last result can be narrowed
+        R narrowFrom = lastQuery != null && query.startsWith(lastQuery) ? lastResult : null;
+        int version = dataVersion;
+        loader.load(key, () -> search.search(query, narrowFrom), result -> {
+            if (version == dataVersion) {
+                lastQuery = query;
+                lastResult = result;
+            }
+            onResult.accept(result);
+        });
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+}
@@ -1,12 +1,30 @@
 package ui;
 
+import model.DeviceStatus;
+
 import javax.swing.*;
 import java.awt.*;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Small shared helpers for UI components to avoid duplicated code.
  */
 public final class UiUtils {
+    private static final Map<DeviceStatus, Color> STATUS_COLORS = new EnumMap<>(DeviceStatus.class);
+
+    static {
+        STATUS_COLORS.put(DeviceStatus.NEW, new Color(198, 239, 206));
+        STATUS_COLORS.put(DeviceStatus.OLD, new Color(255, 249, 196));
+        STATUS_COLORS.put(DeviceStatus.IN_USE, new Color(221, 235, 247));
+        STATUS_COLORS.put(DeviceStatus.REPAIRED, new Color(230, 230, 250));
+        STATUS_COLORS.put(DeviceStatus.UNDER_MAINTENANCE, new Color(255, 229, 153));
+        STATUS_COLORS.put(DeviceStatus.DISPOSED, Color.LIGHT_GRAY);
+        STATUS_COLORS.put(DeviceStatus.MISSING, new Color(255, 215, 0));
+        STATUS_COLORS.put(DeviceStatus.BROKEN, new Color(255, 102, 102));
+    }
+
     private UiUtils() {
     }
 
@@ -66,30 +84,41 @@ public final class UiUtils {
      * @return Color used to render the status cell background
      */
     public static Color colorForStatus(String status) {
-        if (status == null)
-            return Color.WHITE;
-        String s = status.toLowerCase();
-        switch (s) {
-            case "new":
-                return new Color(198, 239, 206);
-            case "old":
-                return new Color(255, 249, 196);
-            case "in use":
-            case "in-use":
-                return new Color(221, 235, 247);
-            case "repaired":
-                return new Color(230, 230, 250);
-            case "under maintenance":
-            case "under_maintenance":
-                return new Color(255, 229, 153);
-            case "disposed":
-                return Color.LIGHT_GRAY;
-            case "missing":
-                return new Color(255, 215, 0);
-            case "broken":
-                return new Color(255, 102, 102);
-            default:
-                return Color.WHITE;
+        return colorForStatus(DeviceStatus.parse(status));
+    }
+
+    /**
+     * Map a parsed device status to its status cell background color.
+     *
+     * @param status device status, or null for an unknown status
+     * @return Color used to render the status cell background
+     */
+    public static Color colorForStatus(DeviceStatus status) {
+        Color color = status == null ? null : STATUS_COLORS.get(status);
+        return color == null ? Color.WHITE : color;
+    }
+
+    /**
+     * List ids for a message, e.g. "3, 4, 9, ... 37 more" when there are more
+     * than {@code max}. Used by action log entries and confirmations so both
+     * describe a selection the same way.
+     *
+     * @param ids ids to list, in order
+     * @param max most ids to write out
+     * @return comma-separated ids
+     */
+    public static String describeIds(List<Integer> ids, int max) {
+        int shown = Math.min(ids.size(), max);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < shown; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(ids.get(i));
+        }
+        if (ids.size() > shown) {
+            sb.append(", ... ").append(ids.size() - shown).append(" more");
         }
+        return sb.toString();
     }
 }
@@ -1,14 +1,10 @@
 package ui.components;
 
-import dao.DeviceDAO;
-import model.Device;
 import model.User;
 import ui.UiUtils;
-import ui.dialogs.DeviceFormDialog;
 import ui.views.ManageDevicesUI;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 
 /**
@@ -21,7 +17,7 @@ public class ButtonEditor extends DefaultCellEditor {
     private final ManageDevicesUI parentUI;
     private final User currentUser;
     private final JTable table;
-    private final DefaultTableModel tableModel;
+    private final DeviceTableModel tableModel;
 
     /**
      * Create a ButtonEditor.
@@ -30,9 +26,9 @@ public class ButtonEditor extends DefaultCellEditor {
      *                    editing
      * @param currentUser the currently logged-in user (passed to the edit dialog)
      * @param table       the JTable this editor belongs to
-     * @param tableModel  the table model used to read the row id from column 0
+     * @param tableModel  the table model used to look up the row's device
      */
-    public ButtonEditor(ManageDevicesUI parentUI, User currentUser, JTable table, DefaultTableModel tableModel) {
+    public ButtonEditor(ManageDevicesUI parentUI, User currentUser, JTable table, DeviceTableModel tableModel) {
         super(new JCheckBox()); // DefaultCellEditor requires a component
         this.parentUI = parentUI;
         this.currentUser = currentUser;
@@ -63,8 +59,9 @@ public class ButtonEditor extends DefaultCellEditor {
 
     /**
      * Called when editing is finished. This method performs the edit action:
-     * it reads the device ID from the table model, opens the DeviceFormDialog
-     * to edit that device, and refreshes the parent UI after the dialog closes.
+     * it reads the device ID from the table model and asks the parent UI to
+     * look up the device and open the DeviceFormDialog; the table refreshes
+     * from repository change events after a save.
      *
      * @return an Object used by the table editor framework (not used by this
      *         editor)
@@ -75,20 +72,14 @@ public class ButtonEditor extends DefaultCellEditor {
         if (viewRow >= 0) {
             int modelRow = table.convertRowIndexToModel(viewRow);
             try {
-                Object idObject = tableModel.getValueAt(modelRow, 0);
+                Object idObject = tableModel.getValueAt(modelRow, DeviceTableModel.ID_COLUMN);
                 int id = parseIdSafe(idObject);
                 if (id != -1) {
-                    Device device = DeviceDAO.getById(id);
-                    if (device != null) {
-                        DeviceFormDialog dialog = new DeviceFormDialog(parentUI, device, currentUser);
-                        dialog.setVisible(true);
-                    }
+                    // Open after editingStopped completes to avoid row index mismatches
+                    SwingUtilities.invokeLater(() -> parentUI.openEditor(id));
                 }
             } catch (Exception ignored) {
                 // Keep UI responsive: ignore non-critical exceptions here
-            } finally {
-                // Refresh after editingStopped completes to avoid row index mismatches
-                SwingUtilities.invokeLater(() -> parentUI.refresh());
             }
         }
         return "Edit";
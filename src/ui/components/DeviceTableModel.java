@@ -0,0 +1,210 @@
+package ui.components;
+
+import dao.DeviceChangeEvent;
+import model.Device;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table model for the Manage Devices screen backed by a list of devices.
+ *
+ * The list is filled once with {@link #setDevices(List)}; after that single
+ * changes from the device repository are applied with
+ * {@link #apply(DeviceChangeEvent)}, which fires row-level inserted, updated
+ * or deleted events so editing one device only repaints and re-sorts one row.
+ * Bulk events are applied as a whole, with the id index rebuilt at most once
+ * and one table event per kind of change.
+ *
+ * Must only be used on the EDT.
+ */
+public class DeviceTableModel extends AbstractTableModel {
+    /** Column holding the (hidden) device id. */
+    public static final int ID_COLUMN = 0;
+    /** Column holding the device status. */
+    public static final int STATUS_COLUMN = 3;
+    /** Column holding the Edit button. */
+    public static final int FUNCTIONS_COLUMN = 5;
+
+    private static final String[] COLUMNS = { "id", "Device Number", "Computer Parts", "Status", "Location",
+            "Functions" };
+
+    private final List<Device> rows = new ArrayList<>();
+    // device id -> row index in rows
+    private final Map<Integer, Integer> rowById = new HashMap<>();
+    private boolean loaded;
+
+    /**
+     * Replace every row; used for the initial load and full reloads.
+     *
+     * @param devices devices to show
+     */
+    public void setDevices(List<Device> devices) {
+        rows.clear();
+        rowById.clear();
+        for (Device d : devices) {
+            rowById.put(d.getId(), rows.size());
+            rows.add(d);
+        }
+        loaded = true;
+        fireTableDataChanged();
+    }
+
+    /**
+     * @return true once {@link #setDevices(List)} has been called
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Apply an inserted, updated or deleted event as row-level changes.
+     * Events are idempotent: an insert of a known id updates the row, an update
+     * of an unknown id adds it and a delete of an unknown id is ignored.
+     * RELOADED events carry no devices and are left to the caller.
+     *
+     * @param event change published by the device repository
+     */
+    public void apply(DeviceChangeEvent event) {
+        List<Device> devices = event.getDevices();
+        if (devices.isEmpty()) {
+            return;
+        }
+        if (event.getType() == DeviceChangeEvent.Type.DELETED) {
+            if (devices.size() == 1) {
+                remove(devices.get(0).getId());
+            } else {
+                removeAll(devices);
+            }
+        } else if (devices.size() == 1) {
+            put(devices.get(0));
+        } else {
+            putAll(devices);
+        }
+    }
+
+    private void put(Device d) {
+        Integer row = rowById.get(d.getId());
+        if (row != null) {
+            rows.set(row, d);
+            fireTableRowsUpdated(row, row);
+            return;
+        }
+        int index = rows.size();
+        rows.add(d);
+        rowById.put(d.getId(), index);
+        fireTableRowsInserted(index, index);
+    }
+
+    // one updated range for the rows already shown, one inserted range for the new ones
+    private void putAll(List<Device> devices) {
+        int firstUpdated = Integer.MAX_VALUE;
+        int lastUpdated = -1;
+        int firstInserted = rows.size();
+        for (Device d : devices) {
+            Integer row = rowById.get(d.getId());
+            if (row != null) {
+                rows.set(row, d);
+                firstUpdated = Math.min(firstUpdated, row);
+                lastUpdated = Math.max(lastUpdated, row);
+            } else {
+                rowById.put(d.getId(), rows.size());
+                rows.add(d);
+            }
+        }
+        if (lastUpdated >= 0) {
+            fireTableRowsUpdated(firstUpdated, lastUpdated);
+        }
+        if (rows.size() > firstInserted) {
+            fireTableRowsInserted(firstInserted, rows.size() - 1);
+        }
+    }
+
+    private void remove(int id) {
+        Integer row = rowById.remove(id);
+        if (row == null) {
+            return;
+        }
+        rows.remove((int) row);
+        // rows after the removed one moved up by one
+        for (int i = row; i < rows.size(); i++) {
+            rowById.put(rows.get(i).getId(), i);
+        }
+        fireTableRowsDeleted(row, row);
+    }
+
+    // drop every deleted row in one pass, then re-index once
+    private void removeAll(List<Device> devices) {
+        Set<Integer> ids = new HashSet<>();
+        for (Device d : devices) {
+            ids.add(d.getId());
+        }
+        if (!rows.removeIf(d -> ids.contains(d.getId()))) {
+            return;
+        }
+        rowById.clear();
+        for (int i = 0; i < rows.size(); i++) {
+            rowById.put(rows.get(i).getId(), i);
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Get the device shown in a model row.
+     *
+     * @param row model row index
+     * @return device at that row
+     */
+    public Device getDeviceAt(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == ID_COLUMN ? Integer.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == FUNCTIONS_COLUMN; // Only "Functions" column editable
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Device d = rows.get(row);
+        switch (column) {
+            case 0:
+                return d.getId();
+            case 1:
+                return d.getDeviceNumber();
+            case 2:
+                return d.getType();
+            case 3:
+                return d.getStatus();
+            case 4:
+                return d.getLocation();
+            default:
+                return "Edit";
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package ui.components;
+
+import dao.LogQuery;
+import model.User;
+import util.DateTimes;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Filter controls for a log report: a date range (typed or picked from a
+ * preset such as "Last 7 days"), a user, an action type and text the entry
+ * must contain. Builds the
+ * {@link LogQuery} for the report's table.
+ */
+public class LogFilterBar extends JPanel {
+    private static final String[] PRESETS = { "All dates", "Today", "Yesterday", "Last 7 days", "Last 30 days",
+            "This month", "This year", "Custom" };
+    private static final int CUSTOM = PRESETS.length - 1;
+
+    private final LogQuery.Kind kind;
+    private final String[] typePrefixes;
+    private final JComboBox<String> presetBox = new JComboBox<>(PRESETS);
+    private final JTextField fromField = new JTextField(8);
+    private final JTextField toField = new JTextField(8);
+    private final JTextField textField = new JTextField(10);
+    private final JComboBox<User> userBox = new JComboBox<>();
+    private final JComboBox<String> typeBox;
+    private Runnable onApply = () -> {
+    };
+    // set while the controls are changed programmatically, to skip the callback
+    private boolean updating;
+
+    /**
+     * Constructor
+     *
+     * @param kind log table the filters apply to
+     */
+    public LogFilterBar(LogQuery.Kind kind) {
+        super(new FlowLayout(FlowLayout.RIGHT));
+        this.kind = kind;
+        setBackground(Color.WHITE);
+
+        // action types are the leading words the screens write into the logs
+        String[] typeLabels;
+        if (kind == LogQuery.Kind.LOGIN) {
+            typeLabels = new String[] { "All types", "Login", "Logout" };
+            typePrefixes = new String[] { null, "<User> login", "<User> logout" };
+        } else {
+            typeLabels = new String[] { "All actions", "Added", "Updated", "Bulk updated", "Deleted", "Restored",
+                    "Imported" };
+            typePrefixes = new String[] { null, "Added", "Updated", "Bulk updated", "Deleted", "Restored",
+                    "Imported" };
+        }
+        typeBox = new JComboBox<>(typeLabels);
+
+        userBox.addItem(null);
+        userBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                String text = value == null ? "All users" : ((User) value).getUsername();
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+
+        fromField.setToolTipText("mm/dd/yyyy");
+        toField.setToolTipText("mm/dd/yyyy (inclusive)");
+        presetBox.addActionListener(e -> {
+            if (presetBox.getSelectedIndex() != CUSTOM) {
+                applyPreset(presetBox.getSelectedIndex());
+                fire();
+            }
+        });
+        fromField.addActionListener(e -> customRange());
+        toField.addActionListener(e -> customRange());
+        textField.setToolTipText("Show entries containing this text");
+        textField.addActionListener(e -> fire());
+        userBox.addActionListener(e -> fire());
+        typeBox.addActionListener(e -> fire());
+        JButton apply = new JButton("Apply");
+        apply.addActionListener(e -> {
+            if (presetBox.getSelectedIndex() == CUSTOM) {
+                customRange();
+            } else {
+                fire(); // keep the preset's range, apply the other filters
+            }
+        });
+
+        add(presetBox);
+        add(new JLabel("From:"));
+        add(fromField);
+        add(new JLabel("To:"));
+        add(toField);
+        add(userBox);
+        add(typeBox);
+        add(new JLabel("Contains:"));
+        add(textField);
+        add(apply);
+    }
+
+    /**
+     * Set what runs when the filters change.
+     *
+     * @param onApply callback, run on the EDT
+     */
+    public void setOnApply(Runnable onApply) {
+        this.onApply = onApply;
+    }
+
+    /**
+     * Fill the user filter.
+     *
+     * @param users users to offer, in display order
+     */
+    public void setUsers(List<User> users) {
+        User selected = (User) userBox.getSelectedItem();
+        updating = true;
+        userBox.removeAllItems();
+        userBox.addItem(null);
+        for (User u : users) {
+            userBox.addItem(u);
+            if (selected != null && selected.getId() == u.getId()) {
+                userBox.setSelectedItem(u);
+            }
+        }
+        updating = false;
+    }
+
+    /**
+     * Build a query for the current filters.
+     *
+     * @return the query, or null if a date is not in mm/dd/yyyy format
+     */
+    public LogQuery toQuery() {
+        LocalDate from = null;
+        LocalDate to = null;
+        String fromText = fromField.getText().trim();
+        String toText = toField.getText().trim();
+        if (!fromText.isEmpty() && (from = DateTimes.parseDate(fromText)) == null
+                || !toText.isEmpty() && (to = DateTimes.parseDate(toText)) == null) {
+            return null;
+        }
+        LogQuery query = new LogQuery(kind);
+        // the To date is inclusive, so the range ends at the next midnight
+        query.setDateRange(from == null ? null : DateTimes.startOfDay(from),
+                to == null ? null : DateTimes.startOfDay(to.plusDays(1)));
+        User user = (User) userBox.getSelectedItem();
+        query.setUserId(user == null ? null : user.getId());
+        query.setActionType(typePrefixes[Math.max(0, typeBox.getSelectedIndex())]);
+        query.setTextFilter(textField.getText());
+        return query;
+    }
+
+    /**
+     * Reset every filter; does not run the apply callback.
+     */
+    public void clear() {
+        updating = true;
+        presetBox.setSelectedIndex(0);
+        userBox.setSelectedIndex(0);
+        typeBox.setSelectedIndex(0);
+        textField.setText("");
+        applyPreset(0);
+        updating = false;
+    }
+
+    private void customRange() {
+        presetBox.setSelectedIndex(CUSTOM);
+        fire();
+    }
+
+    private void fire() {
+        if (!updating) {
+            onApply.run();
+        }
+    }
+
+    private void applyPreset(int preset) {
+        LocalDate today = LocalDate.now();
+        LocalDate from = null;
+        LocalDate to = today;
+        switch (preset) {
+            case 1:
+                from = today;
+                break;
+            case 2:
+                from = today.minusDays(1);
+                to = from;
+                break;
+            case 3:
+                from = today.minusDays(6);
+                break;
+            case 4:
+                from = today.minusDays(29);
+                break;
+            case 5:
+                from = today.withDayOfMonth(1);
+                break;
+            case 6:
+                from = today.withDayOfYear(1);
+                break;
+            default:
+                to = null;
+                break;
+        }
+        fromField.setText(from == null ? "" : from.format(DateTimes.DATE_FORMAT));
+        toField.setText(to == null ? "" : to.format(DateTimes.DATE_FORMAT));
+    }
+}
@@ -0,0 +1,254 @@
+package ui.components;
+
+import dao.LogDAO;
+import dao.LogPage;
+import dao.LogQuery;
+import ui.BackgroundLoader;
+
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Read-only table model for log reports that loads rows a page at a time as
+ * the table asks for them, instead of holding the whole log in memory.
+ *
+ * Only the row count is fetched up front. Pages are read with keyset queries
+ * ({@link LogDAO#getLogPage}) and kept in a small LRU cache, so memory stays
+ * bounded no matter how many log rows exist. The cursor each page starts after
+ * is remembered so scrolling back and forth never needs OFFSET.
+ *
+ * Sorting is done by the database: {@link #toggleSort} reloads with the
+ * column's {@link LogQuery.SortKey}, and each order is read along an index.
+ *
+ * All queries run on the screen's {@link BackgroundLoader}. Rows of a page that
+ * is still loading render blank and are repainted once the page arrives; a
+ * page that fails to load is asked for again a second later. The
+ * model keeps its own copy of the query and never changes it once loads have
+ * started with it, so workers still in flight see a stable query.
+ */
+public class PagedLogTableModel extends AbstractTableModel {
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 8;
+    private static final int RETRY_DELAY_MS = 1000;
+    // column index -> sort key (id, text, user, time)
+    private static final LogQuery.SortKey[] COLUMN_SORT = { LogQuery.SortKey.ID, LogQuery.SortKey.TEXT,
+            LogQuery.SortKey.USER, LogQuery.SortKey.TIME };
+
+    private final String[] columns;
+    private final BackgroundLoader loader;
+    private final String loadKey = "log-" + System.identityHashCode(this);
+
+    private LogQuery query;
+    private LogQuery.SortKey sortKey = LogQuery.SortKey.ID;
+    private boolean ascending;
+    private int rowCount;
+    private int generation;
+    private final Set<Integer> requestedPages = new HashSet<>();
+
+    // page index -> rows, least recently used page evicted first
+    private final LinkedHashMap<Integer, List<String[]>> pages = new LinkedHashMap<Integer, List<String[]>>(16,
+            0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<String[]>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    // page index -> cursor the page starts after (null for the first page)
+    private final TreeMap<Integer, LogPage.Cursor> pageCursors = new TreeMap<>();
+
+    /**
+     * Create an empty model.
+     *
+     * @param columns column headers (id, text, user, time)
+     * @param loader  background loader of the owning screen
+     */
+    public PagedLogTableModel(String[] columns, BackgroundLoader loader) {
+        this.columns = columns;
+        this.loader = loader;
+    }
+
+    /**
+     * Replace the query and reload from the first page. A copy of the query is
+     * taken and given the model's current sort order; the caller's query is
+     * left unchanged. The row count is fetched in the background; results of
+     * the previous query still in flight are discarded.
+     *
+     * @param query log table and filters to show
+     */
+    public void setQuery(LogQuery query) {
+        LogQuery sorted = new LogQuery(query);
+        sorted.setSort(sortKey, ascending);
+        this.query = sorted;
+        generation++;
+        pages.clear();
+        requestedPages.clear();
+        pageCursors.clear();
+        pageCursors.put(0, null);
+        rowCount = 0;
+        fireTableDataChanged();
+        loader.load(loadKey + "-count", () -> LogDAO.countLogs(sorted), count -> {
+            rowCount = count;
+            fireTableDataChanged();
+        });
+    }
+
+    /**
+     * @return a copy of the query currently shown, with its sort order, or
+     *         null before the first setQuery
+     */
+    public LogQuery getQuery() {
+        return query == null ? null : new LogQuery(query);
+    }
+
+    /**
+     * Sort by a column, or reverse the order if it is already sorted by it,
+     * and reload. Ignored before the first setQuery.
+     *
+     * @param column model column index
+     */
+    public void toggleSort(int column) {
+        if (query == null || column < 0 || column >= COLUMN_SORT.length) {
+            return;
+        }
+        if (COLUMN_SORT[column] == sortKey) {
+            ascending = !ascending;
+        } else {
+            sortKey = COLUMN_SORT[column];
+            // times and ids read newest first; text and users A to Z
+            ascending = sortKey == LogQuery.SortKey.TEXT || sortKey == LogQuery.SortKey.USER;
+        }
+        setQuery(query);
+    }
+
+    /**
+     * Get the header of a column, with an arrow on the sorted column. The
+     * user column sorts by account id (the order its index is kept in), not by
+     * name, so while it is sorted its header says so.
+     *
+     * @param column model column index
+     * @return header text
+     */
+    public String getHeader(int column) {
+        boolean sorted = column < COLUMN_SORT.length && COLUMN_SORT[column] == sortKey;
+        if (!sorted) {
+            return columns[column];
+        }
+        String by = sortKey == LogQuery.SortKey.USER ? " (by user ID)" : "";
+        return columns[column] + by + (ascending ? " \u25B2" : " \u25BC");
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int pageIndex = row / PAGE_SIZE;
+        List<String[]> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return "";
+        }
+        int index = row % PAGE_SIZE;
+        // the log may have shrunk since the count was taken
+        return index < page.size() ? page.get(index)[column] : "";
+    }
+
+    /*
+     * Load a page in the background. The cursor is resolved on the EDT from
+     * what we already know; if the page's own cursor is unknown the worker
+     * skips forward from the nearest known one along the sort index.
+     */
+    private void requestPage(int pageIndex) {
+        if (!requestedPages.add(pageIndex)) {
+            return;
+        }
+        LogQuery pageQuery = query;
+        int pageGeneration = generation;
+        Map.Entry<Integer, LogPage.Cursor> nearest = pageCursors.floorEntry(pageIndex);
+        int skip = (pageIndex - nearest.getKey()) * PAGE_SIZE;
+        LogPage.Cursor knownCursor = nearest.getValue();
+
+        loader.load(loadKey + "-page-" + pageIndex, () -> {
+            LogPage.Cursor cursor = knownCursor;
+            if (skip > 0) {
+                cursor = LogDAO.findCursorAt(pageQuery, knownCursor, skip);
+                if (cursor == null) {
+                    // fewer rows than counted: the log shrank
+                    return new PageResult(null, Collections.emptyList(), null);
+                }
+            }
+            LogPage page = LogDAO.getLogPage(pageQuery, cursor, PAGE_SIZE);
+            return new PageResult(cursor, page.getRows(), page.getLast());
+        }, result -> {
+            if (pageGeneration != generation) {
+                return;
+            }
+            requestedPages.remove(pageIndex);
+            if (result.cursor != null) {
+                pageCursors.put(pageIndex, result.cursor);
+            }
+            if (result.rows.size() == PAGE_SIZE) {
+                pageCursors.put(pageIndex + 1, result.next);
+            }
+            pages.put(pageIndex, result.rows);
+            int first = pageIndex * PAGE_SIZE;
+            int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, error -> {
+            System.out.println("Load log page error: " + error.getMessage());
+            if (pageGeneration != generation) {
+                return;
+            }
+            // repaint the page's rows after a pause so they ask for it again
+            requestedPages.remove(pageIndex);
+            Timer retry = new Timer(RETRY_DELAY_MS, e -> {
+                int first = pageIndex * PAGE_SIZE;
+                int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+                if (pageGeneration == generation && last >= first) {
+                    fireTableRowsUpdated(first, last);
+                }
+            });
+            retry.setRepeats(false);
+            retry.start();
+        });
+    }
+
+    private static final class PageResult {
+        final LogPage.Cursor cursor;
+        final List<String[]> rows;
+        final LogPage.Cursor next;
+
+        PageResult(LogPage.Cursor cursor, List<String[]> rows, LogPage.Cursor next) {
+            this.cursor = cursor;
+            this.rows = rows;
+            this.next = next;
+        }
+    }
+}
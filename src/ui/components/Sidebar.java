@@ -16,7 +16,7 @@ import java.time.format.DateTimeFormatter;
 public class Sidebar extends JPanel {
     private User currentUser;
     private JFrame parentFrame;
-    private String currentScreen; // "DASHBOARD", "MANAGE_DEVICES", or "REPORTS"
+    private String currentScreen; // "DASHBOARD", "MANAGE_DEVICES", "REPORTS" or "DIAGNOSTICS"
     private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm:ss a");
 
     /**
@@ -109,6 +109,18 @@ public class Sidebar extends JPanel {
         }
         navPanel.add(reportsBtn);
 
+        // Diagnostics button, admins only
+        if (currentUser.isAdmin()) {
+            navPanel.add(Box.createVerticalStrut(5));
+            JButton diagnosticsBtn = UiUtils.makeNavButton("DIAGNOSTICS", new Color(176, 196, 222));
+            if ("DIAGNOSTICS".equals(currentScreen)) {
+                diagnosticsBtn.setEnabled(false);
+            } else {
+                diagnosticsBtn.addActionListener(e -> navigateToDiagnostics());
+            }
+            navPanel.add(diagnosticsBtn);
+        }
+
         return navPanel;
     }
 
@@ -145,6 +157,10 @@ public class Sidebar extends JPanel {
         openFrameAndCloseParent(() -> new ui.views.ReportsUI(currentUser));
     }
 
+    private void navigateToDiagnostics() {
+        openFrameAndCloseParent(() -> new ui.views.DiagnosticsUI(currentUser));
+    }
+
     // Helper to open a new frame and close the parent in the EDT
     private void openFrameAndCloseParent(java.util.function.Supplier<JFrame> frameSupplier) {
         SwingUtilities.invokeLater(() -> {
@@ -3,13 +3,15 @@ package ui.components;
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
 
+import model.DeviceStatus;
 import ui.UiUtils;
 
 import java.awt.*;
 
 /**
  * A custom table cell renderer that changes the background color of the cell
- * based on the status value it contains.
+ * based on the status value it contains. For a {@link DeviceTableModel} the
+ * device's already parsed status is used, so painting does no string work.
  */
 
 public class StatusCellRenderer extends DefaultTableCellRenderer {
@@ -18,13 +20,16 @@ public class StatusCellRenderer extends DefaultTableCellRenderer {
             int row, int column) {
         Component component = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         if (!isSelected) {
-            if (value != null) {
-                Color backgroundColor = UiUtils.colorForStatus(value.toString());
-                component.setBackground(backgroundColor);
-            } else {
-                component.setBackground(Color.WHITE);
-            }
+            component.setBackground(UiUtils.colorForStatus(statusAt(table, value, row)));
         }
         return component;
     }
+
+    private static DeviceStatus statusAt(JTable table, Object value, int row) {
+        if (table.getModel() instanceof DeviceTableModel) {
+            DeviceTableModel model = (DeviceTableModel) table.getModel();
+            return model.getDeviceAt(table.convertRowIndexToModel(row)).getDeviceStatus();
+        }
+        return value == null ? null : DeviceStatus.parse(value.toString());
+    }
 }
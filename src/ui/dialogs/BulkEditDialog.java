@@ -0,0 +1,168 @@
+package ui.dialogs;
+
+import dao.DeviceRepository;
+import dao.LogDAO;
+import model.DeviceStatus;
+import model.User;
+import ui.BackgroundLoader;
+import util.UIHelpers;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Dialog for changing status, location and/or notes of several selected
+ * devices at once. Only the ticked fields are changed; all devices are updated
+ * in one transaction with one action log entry. The update runs in the
+ * background; the dialog cannot be applied again or closed until it finishes.
+ */
+
+public class BulkEditDialog extends JDialog {
+    private final List<Integer> ids;
+    private final User currentUser;
+    private JCheckBox statusCheck;
+    private JComboBox<String> statusCombo;
+    private JCheckBox locationCheck;
+    private JComboBox<String> locationCombo;
+    private JCheckBox notesCheck;
+    private JTextArea notesArea;
+    private JButton apply;
+    private JButton cancel;
+    private final BackgroundLoader loader = new BackgroundLoader(null);
+
+    /**
+     * Constructor
+     *
+     * @param owner       Parent frame
+     * @param ids         ids of the selected devices
+     * @param currentUser Current logged-in user for logging purposes
+     */
+    public BulkEditDialog(Frame owner, List<Integer> ids, User currentUser) {
+        super(owner, true);
+        this.ids = ids;
+        this.currentUser = currentUser;
+        setTitle("Edit " + ids.size() + " Devices");
+        setSize(420, 330);
+        setLocationRelativeTo(owner);
+        // dispose (not just hide) on close so the dialog's loader is released
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        init();
+    }
+
+    // Initialize UI components
+    private void init() {
+        JPanel p = new JPanel(null);
+        int y = 10;
+
+        JLabel hint = new JLabel("Tick the fields to change on all " + ids.size() + " devices.");
+        hint.setBounds(10, y, 380, 25);
+        p.add(hint);
+        y += 35;
+
+        statusCheck = new JCheckBox("Status:");
+        statusCheck.setBounds(10, y, 120, 25);
+        p.add(statusCheck);
+        statusCombo = new JComboBox<>(DeviceStatus.labels());
+        statusCombo.setBounds(140, y, 220, 25);
+        statusCombo.setEnabled(false);
+        statusCheck.addActionListener(e -> statusCombo.setEnabled(statusCheck.isSelected()));
+        p.add(statusCombo);
+        y += 40;
+
+        locationCheck = new JCheckBox("Location:");
+        locationCheck.setBounds(10, y, 120, 25);
+        p.add(locationCheck);
+        locationCombo = new JComboBox<>(DeviceFormDialog.LOCATIONS);
+        locationCombo.setBounds(140, y, 220, 25);
+        locationCombo.setEnabled(false);
+        locationCheck.addActionListener(e -> locationCombo.setEnabled(locationCheck.isSelected()));
+        p.add(locationCombo);
+        y += 40;
+
+        notesCheck = new JCheckBox("Notes:");
+        notesCheck.setBounds(10, y, 120, 25);
+        p.add(notesCheck);
+        notesArea = new JTextArea();
+        notesArea.setEnabled(false);
+        notesCheck.addActionListener(e -> notesArea.setEnabled(notesCheck.isSelected()));
+        JScrollPane notesSp = new JScrollPane(notesArea);
+        notesSp.setBounds(140, y, 220, 80);
+        p.add(notesSp);
+        y += 100;
+
+        apply = ui.UiUtils.makeButton("Apply", new Color(200, 200, 200));
+        apply.setBounds(60, y, 100, 30);
+        apply.addActionListener(e -> onApply());
+        p.add(apply);
+
+        cancel = ui.UiUtils.makeButton("Cancel", new Color(200, 200, 200));
+        cancel.setBounds(200, y, 100, 30);
+        cancel.addActionListener(e -> dispose());
+        p.add(cancel);
+
+        getContentPane().add(p);
+    }
+
+    // Save the ticked fields on every selected device
+    private void onApply() {
+        String status = statusCheck.isSelected() ? (String) statusCombo.getSelectedItem() : null;
+        String location = locationCheck.isSelected() ? (String) locationCombo.getSelectedItem() : null;
+        String notes = notesCheck.isSelected() ? notesArea.getText().trim() : null;
+        if (status == null && location == null && notes == null) {
+            JOptionPane.showMessageDialog(this, "Tick at least one field to change", "Validation",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        setBusy(true);
+        loader.load("bulk-update", () -> DeviceRepository.getInstance().bulkUpdate(ids, status, location, notes),
+                updated -> {
+                    setBusy(false);
+                    if (updated < 0) {
+                        JOptionPane.showMessageDialog(this, "Update failed");
+                        return;
+                    }
+                    if (currentUser != null) {
+                        LogDAO.insertActionLog(currentUser.getId(), describe(updated, status, location, notes),
+                                LocalDateTime.now().format(UIHelpers.DEFAULT_DTF));
+                    }
+                    JOptionPane.showMessageDialog(this, "Updated " + updated + " devices");
+                    dispose();
+                }, error -> {
+                    setBusy(false);
+                    JOptionPane.showMessageDialog(this, "Update failed: " + error.getMessage());
+                });
+    }
+
+    @Override
+    public void dispose() {
+        loader.dispose();
+        super.dispose();
+    }
+
+    // keep the dialog open while an update is running so its result is reported and logged
+    private void setBusy(boolean busy) {
+        apply.setEnabled(!busy);
+        cancel.setEnabled(!busy);
+        setDefaultCloseOperation(busy ? JDialog.DO_NOTHING_ON_CLOSE : JDialog.DISPOSE_ON_CLOSE);
+        setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
+
+    // One action log line for the whole change, e.g.
+    // "Bulk updated 40 devices: status=Under Maintenance (IDs 3, 4, 9, ...)"
+    private String describe(int updated, String status, String location, String notes) {
+        StringBuilder sb = new StringBuilder("Bulk updated ").append(updated).append(" devices:");
+        if (status != null) {
+            sb.append(" status=").append(status);
+        }
+        if (location != null) {
+            sb.append(" location=").append(location);
+        }
+        if (notes != null) {
+            sb.append(" notes changed");
+        }
+        return sb.append(" (IDs ").append(ui.UiUtils.describeIds(ids, 50)).append(")").toString();
+    }
+}
@@ -1,8 +1,9 @@
 package ui.dialogs;
 
-import dao.DeviceDAO;
+import dao.DeviceRepository;
 import dao.LogDAO;
 import model.Device;
+import model.DeviceStatus;
 import model.User;
 
 import javax.swing.*;
@@ -29,6 +30,9 @@ public class DeviceFormDialog extends JDialog {
     private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm:ss a");
     private JTextArea notesArea;
 
+    // sample locations, shared with the bulk edit dialog
+    static final String[] LOCATIONS = { "Lab A", "Lab B", "Storage", "Office", "Other" };
+
     /**
      * Constructor
      *
@@ -65,14 +69,11 @@ public class DeviceFormDialog extends JDialog {
         y += 40;
 
         // status combo (per spec)
-        String[] statuses = new String[] { "New", "Old", "In Use", "Repaired", "Under Maintenance", "Disposed",
-                "Missing", "Broken" };
-        statusCombo = addCombo(p, "Status:", statuses, 10, y);
+        statusCombo = addCombo(p, "Status:", DeviceStatus.labels(), 10, y);
         y += 40;
 
         // location combo (sample locations)
-        String[] locations = new String[] { "Lab A", "Lab B", "Storage", "Office", "Other" };
-        locationCombo = addCombo(p, "Location:", locations, 10, y);
+        locationCombo = addCombo(p, "Location:", LOCATIONS, 10, y);
         y += 40;
 
         // notes area
@@ -126,7 +127,9 @@ public class DeviceFormDialog extends JDialog {
             typeCombo.setSelectedItem(editing.getType());
             brandField.setText(editing.getBrand());
             modelField.setText(editing.getModel());
-            statusCombo.setSelectedItem(editing.getStatus());
+            // select the canonical label even for older spellings like "in-use"
+            DeviceStatus status = editing.getDeviceStatus();
+            statusCombo.setSelectedItem(status != null ? status.getLabel() : editing.getStatus());
             locationCombo.setSelectedItem(editing.getLocation());
             notesArea.setText(editing.getNotes());
             purchaseDateField.setText(editing.getPurchaseDate());
@@ -186,7 +189,7 @@ public class DeviceFormDialog extends JDialog {
             d.setPurchaseDate(purchaseDateField.getText().trim());
             d.setCost(parseDoubleSafe(costField.getText().trim(), 0));
 
-            boolean ok = DeviceDAO.insert(d);
+            boolean ok = DeviceRepository.getInstance().insert(d);
             if (ok) {
                 // log action
                 try {
@@ -211,7 +214,7 @@ public class DeviceFormDialog extends JDialog {
             editing.setPurchaseDate(purchaseDateField.getText().trim());
             editing.setCost(parseDoubleSafe(costField.getText().trim(), 0));
 
-            boolean ok = DeviceDAO.update(editing);
+            boolean ok = DeviceRepository.getInstance().update(editing);
             if (ok) {
                 try {
                     if (currentUser != null)
@@ -256,7 +259,7 @@ public class DeviceFormDialog extends JDialog {
         if (choice != JOptionPane.YES_OPTION)
             return;
 
-        boolean ok = DeviceDAO.delete(editing.getId());
+        boolean ok = DeviceRepository.getInstance().delete(editing.getId());
         if (ok) {
             try {
                 if (currentUser != null)
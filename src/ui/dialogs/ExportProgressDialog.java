@@ -0,0 +1,170 @@
+package ui.dialogs;
+
+import dao.ExportMonitor;
+import ui.BackgroundLoader;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress window for a CSV export, with a Cancel button. The export runs in
+ * the background as a bulk job; this dialog is its {@link ExportMonitor}.
+ * Several exports may run at once, each with its own dialog.
+ */
+public class ExportProgressDialog extends JDialog implements ExportMonitor {
+    // each export gets its own loader key so a second one never supersedes the first
+    private static final AtomicInteger EXPORT_IDS = new AtomicInteger();
+
+    private final JProgressBar progressBar;
+    private final JLabel statusLabel;
+    private volatile boolean cancelled;
+    // coalesce progress updates so a fast export doesn't flood the EDT
+    private final AtomicBoolean updatePending = new AtomicBoolean();
+    private volatile long rowsWritten;
+    private volatile long totalRows;
+
+    /**
+     * Export work run in the background.
+     */
+    public interface ExportTask {
+        /**
+         * @param file    target file
+         * @param monitor progress and cancel hook
+         * @return rows written, or -1 if cancelled
+         * @throws Exception if the export fails
+         */
+        long export(Path file, ExportMonitor monitor) throws Exception;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param owner Parent frame
+     * @param title Window title
+     */
+    public ExportProgressDialog(Frame owner, String title) {
+        super(owner, title, false);
+        setSize(380, 140);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+
+        JPanel p = new JPanel(new BorderLayout(8, 8));
+        p.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+        statusLabel = new JLabel("Starting export...");
+        p.add(statusLabel, BorderLayout.NORTH);
+        progressBar = new JProgressBar(0, 1000);
+        progressBar.setIndeterminate(true);
+        p.add(progressBar, BorderLayout.CENTER);
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> cancel());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        buttons.add(cancelButton);
+        p.add(buttons, BorderLayout.SOUTH);
+        getContentPane().add(p);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancel();
+            }
+        });
+    }
+
+    /**
+     * Ask for a target file, then run an export with a progress dialog and
+     * report the outcome.
+     *
+     * @param owner           parent frame
+     * @param loader          background loader of the owning screen
+     * @param title           what is exported, e.g. "Export devices"
+     * @param defaultFileName file name suggested in the chooser
+     * @param task            the export
+     */
+    public static void export(Frame owner, BackgroundLoader loader, String title, String defaultFileName,
+            ExportTask task) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle(title);
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        chooser.setSelectedFile(new File(defaultFileName));
+        if (chooser.showSaveDialog(owner) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File selected = chooser.getSelectedFile();
+        if (!selected.getName().toLowerCase().endsWith(".csv")) {
+            selected = new File(selected.getParentFile(), selected.getName() + ".csv");
+        }
+        if (selected.exists() && JOptionPane.showConfirmDialog(owner, selected.getName() + " exists. Replace it?",
+                title, JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            return;
+        }
+        Path file = selected.toPath();
+        ExportProgressDialog dlg = new ExportProgressDialog(owner, title);
+        dlg.setVisible(true);
+        long start = System.currentTimeMillis();
+        loader.loadBulk("export-" + EXPORT_IDS.incrementAndGet(), () -> task.export(file, dlg), rows -> {
+            dlg.dispose();
+            if (rows < 0) {
+                JOptionPane.showMessageDialog(owner, "Export cancelled", title, JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(owner, "Exported " + rows + " rows in "
+                        + (System.currentTimeMillis() - start) + " ms to\n" + file, title,
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+        }, error -> {
+            dlg.dispose();
+            JOptionPane.showMessageDialog(owner, "Export failed: " + error.getMessage(), title,
+                    JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    @Override
+    public void progress(long rowsWritten, long totalRows) {
+        this.rowsWritten = rowsWritten;
+        this.totalRows = totalRows;
+        if (updatePending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::showProgress);
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stop the export; also happens when the dialog (or its owner) is closed.
+     */
+    public void cancel() {
+        cancelled = true;
+        statusLabel.setText("Cancelling...");
+    }
+
+    @Override
+    public void dispose() {
+        cancelled = true; // owner closed: don't keep writing in the background
+        super.dispose();
+    }
+
+    private void showProgress() {
+        updatePending.set(false);
+        if (cancelled) {
+            return;
+        }
+        long rows = rowsWritten;
+        long total = totalRows;
+        if (total > 0) {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue((int) Math.min(1000, rows * 1000 / total));
+            statusLabel.setText(String.format("Exported %,d of %,d rows", rows, total));
+        } else {
+            statusLabel.setText(String.format("Exported %,d rows", rows));
+        }
+    }
+}
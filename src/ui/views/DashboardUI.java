@@ -1,7 +1,10 @@
 package ui.views;
 
-import dao.DeviceDAO;
+import dao.DeviceRepository;
+import dao.DeviceStats;
+import model.DeviceStatus;
 import model.User;
+import ui.BackgroundLoader;
 import ui.components.Sidebar;
 import util.UIHelpers;
 
@@ -17,6 +20,7 @@ public class DashboardUI extends JFrame {
     private User currentUser;
     private JLabel timeLabel;
     private JLabel allCountLbl, newCountLbl, damagedCountLbl, repairedCountLbl;
+    private BackgroundLoader loader;
 
     /**
      * Constructs the DashboardUI with the specified user.
@@ -35,6 +39,12 @@ public class DashboardUI extends JFrame {
         refreshCounts();
     }
 
+    @Override
+    public void dispose() {
+        loader.dispose();
+        super.dispose();
+    }
+
     /*
     *   Initializes the UI components and layout.
     */
@@ -52,7 +62,9 @@ public class DashboardUI extends JFrame {
 
         // Top header
         timeLabel = new JLabel();
-        JPanel header = UIHelpers.createHeader("DASHBOARD", timeLabel, new Color(238, 232, 170));
+        JProgressBar busyIndicator = UIHelpers.createBusyIndicator();
+        loader = new BackgroundLoader(busyIndicator);
+        JPanel header = UIHelpers.createHeader("DASHBOARD", timeLabel, busyIndicator, new Color(238, 232, 170));
         mainContent.add(header, BorderLayout.NORTH);
 
         // Dashboard content
@@ -115,21 +127,18 @@ public class DashboardUI extends JFrame {
     }
 
     /*
-    *   Refreshes the counts displayed on the dashboard.
+    *   Refreshes the counts displayed on the dashboard. All buckets come from
+    *   one cached stats snapshot, loaded in the background when it is stale.
     */
 
     private void refreshCounts() {
-        // All stocked
-        int totalDevices = DeviceDAO.countAll();
-        allCountLbl.setText(String.valueOf(totalDevices));
-
-        int newDevicesCount = DeviceDAO.countByStatus("new");
-        newCountLbl.setText(String.valueOf(newDevicesCount));
-
-        int damagedDevicesCount = DeviceDAO.countByStatuses(new String[] { "broken", "missing" });
-        damagedCountLbl.setText(String.valueOf(damagedDevicesCount));
+        loader.load("counts", DeviceRepository.getInstance()::getStats, this::showCounts);
+    }
 
-        int repairedDevicesCount = DeviceDAO.countByStatus("repaired");
-        repairedCountLbl.setText(String.valueOf(repairedDevicesCount));
+    private void showCounts(DeviceStats stats) {
+        allCountLbl.setText(String.valueOf(stats.getTotal()));
+        newCountLbl.setText(String.valueOf(stats.count(DeviceStatus.NEW)));
+        damagedCountLbl.setText(String.valueOf(stats.count(DeviceStatus.BROKEN, DeviceStatus.MISSING)));
+        repairedCountLbl.setText(String.valueOf(stats.count(DeviceStatus.REPAIRED)));
     }
 }
@@ -0,0 +1,182 @@
+package ui.views;
+
+import dao.AuditLogWriter;
+import dao.LogArchiver;
+import dao.TombstonePurger;
+import database.ConnectionPool;
+import model.User;
+import ui.BackgroundLoader;
+import ui.EdtWatchdog;
+import ui.components.Sidebar;
+import util.MetricsRegistry;
+import util.UIHelpers;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * DiagnosticsUI shows live DAO and connection metrics: calls, throughput,
+ * errors and latency percentiles per operation, plus the connection pool,
+ * audit log writer, background task and EDT watchdog counters. Admins only.
+ */
+
+public class DiagnosticsUI extends JFrame {
+    private static final int REFRESH_MS = 2000;
+    private static final String[] COLUMNS = { "Operation", "Calls", "Calls/s", "Errors", "Mean ms", "p50 ms",
+            "p90 ms", "p99 ms", "Max ms" };
+
+    private User currentUser;
+    private JLabel timeLabel;
+    private JTextArea summaryArea;
+    private DefaultTableModel metricsModel;
+    private BackgroundLoader loader;
+    private javax.swing.Timer refreshTimer;
+    // calls per operation at the previous refresh, for the Calls/s column
+    private final Map<String, Long> previousCalls = new HashMap<>();
+    private long previousNanos;
+
+    /**
+     * Constructs the DiagnosticsUI with the specified user.
+     *
+     * @param user The current logged-in user.
+     */
+
+    public DiagnosticsUI(User user) {
+        this.currentUser = user;
+        setTitle("CLIMS - Diagnostics");
+        setSize(1200, 650);
+        setLocationRelativeTo(null);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        init();
+        UIHelpers.startClock(timeLabel);
+        if (currentUser.isAdmin()) {
+            refresh();
+            refreshTimer = new javax.swing.Timer(REFRESH_MS, e -> refresh());
+            refreshTimer.start();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (refreshTimer != null) {
+            refreshTimer.stop();
+        }
+        loader.dispose();
+        super.dispose();
+    }
+
+    /*
+    *   Initializes the UI components and layout.
+    */
+
+    private void init() {
+        setLayout(new BorderLayout());
+
+        Sidebar sidebar = new Sidebar(currentUser, this, "DIAGNOSTICS");
+        add(sidebar, BorderLayout.WEST);
+
+        JPanel mainContent = new JPanel(new BorderLayout());
+        mainContent.setBackground(Color.WHITE);
+
+        timeLabel = new JLabel();
+        JProgressBar busyIndicator = UIHelpers.createBusyIndicator();
+        loader = new BackgroundLoader(busyIndicator);
+        JPanel header = UIHelpers.createHeader("DIAGNOSTICS", timeLabel, busyIndicator, new Color(176, 196, 222));
+        mainContent.add(header, BorderLayout.NORTH);
+
+        if (currentUser.isAdmin()) {
+            mainContent.add(createMetricsCard(), BorderLayout.CENTER);
+        } else {
+            // the sidebar hides the button, but don't rely on that alone
+            JLabel denied = new JLabel("Diagnostics are available to administrators only.", SwingConstants.CENTER);
+            denied.setFont(new Font("Arial", Font.PLAIN, 16));
+            mainContent.add(denied, BorderLayout.CENTER);
+        }
+
+        add(mainContent, BorderLayout.CENTER);
+    }
+
+    /*
+    *   Creates the metrics card: background counters on top, the per-operation
+    *   table below and a button to write the metrics file now.
+    */
+
+    private JPanel createMetricsCard() {
+        JPanel card = new JPanel(new BorderLayout(0, 10));
+        card.setBackground(Color.WHITE);
+        card.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        summaryArea = new JTextArea(7, 80);
+        summaryArea.setEditable(false);
+        summaryArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        summaryArea.setBorder(BorderFactory.createTitledBorder("Background"));
+        card.add(summaryArea, BorderLayout.NORTH);
+
+        metricsModel = new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable table = new JTable(metricsModel);
+        table.setRowHeight(24);
+        table.getColumnModel().getColumn(0).setPreferredWidth(260);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setBorder(BorderFactory.createTitledBorder("DAO and connection latency since startup"));
+        card.add(scroll, BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.setBackground(Color.WHITE);
+        JButton dumpBtn = new JButton("Write metrics file");
+        dumpBtn.addActionListener(e -> loader.load("dump", () -> {
+            MetricsRegistry.getInstance().dump();
+            return null;
+        }, ignored -> {
+        }));
+        buttons.add(dumpBtn);
+        card.add(buttons, BorderLayout.SOUTH);
+        return card;
+    }
+
+    /*
+    *   Reloads the table and counters. Everything shown is in memory, so this
+    *   runs on the EDT without touching the database.
+    */
+
+    private void refresh() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        List<MetricsRegistry.Snapshot> snapshots = registry.snapshot();
+        long now = System.nanoTime();
+        double seconds = previousNanos == 0 ? registry.getUptimeSeconds() : (now - previousNanos) / 1e9;
+        previousNanos = now;
+
+        metricsModel.setRowCount(0);
+        for (MetricsRegistry.Snapshot s : snapshots) {
+            Long before = previousCalls.put(s.getName(), s.getCalls());
+            long delta = s.getCalls() - (before == null ? 0 : before);
+            metricsModel.addRow(new Object[] { s.getName(), s.getCalls(), format(delta / Math.max(seconds, 1e-3), 1),
+                    s.getErrors(), format(s.getMeanMillis(), 3), format(s.getPercentileMillis(0.50), 3),
+                    format(s.getPercentileMillis(0.90), 3), format(s.getPercentileMillis(0.99), 3),
+                    format(s.getMaxMillis(), 3) });
+        }
+
+        ConnectionPool pool = ConnectionPool.getInstance();
+        summaryArea.setText(String.format(Locale.ROOT, "Uptime:            %.0f s%n", registry.getUptimeSeconds())
+                + "Connection pool:   " + pool.describeStats() + System.lineSeparator()
+                + "Statement cache:   " + pool.describeStatementCacheStats() + System.lineSeparator()
+                + "Slow queries:      " + pool.describeSlowQueryStats() + System.lineSeparator()
+                + "Audit log writer:  " + AuditLogWriter.getInstance().describeStats() + System.lineSeparator()
+                + "Log archiver:      " + LogArchiver.getInstance().describeStats() + "   Tombstone purger: "
+                + TombstonePurger.getInstance().describeStats() + System.lineSeparator()
+                + "EDT watchdog:      " + EdtWatchdog.getInstance().describeStats());
+    }
+
+    private static String format(double value, int decimals) {
+        return String.format(Locale.ROOT, "%." + decimals + "f", value);
+    }
+}
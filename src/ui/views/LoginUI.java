@@ -3,6 +3,7 @@ package ui.views;
 import dao.LogDAO;
 import dao.UserDAO;
 import model.User;
+import ui.BackgroundLoader;
 
 import javax.swing.*;
 import java.awt.*;
@@ -16,6 +17,8 @@ import java.time.LocalDateTime;
 public class LoginUI extends JFrame {
     private JTextField usernameField;
     private JPasswordField passwordField;
+    private JButton loginBtn;
+    private final BackgroundLoader loader = new BackgroundLoader(null);
 
     public LoginUI() {
         setTitle("CLIMS - Login");
@@ -95,7 +98,7 @@ public class LoginUI extends JFrame {
         loginBox.add(passwordField);
 
         // Login button
-        JButton loginBtn = ui.UiUtils.makeButton("LOGIN", new Color(108, 117, 125));
+        loginBtn = ui.UiUtils.makeButton("LOGIN", new Color(108, 117, 125));
         loginBtn.setBounds(30, 225, 105, 30);
         loginBtn.setForeground(Color.WHITE);
     loginBtn.addActionListener(this::onLogin);
@@ -113,13 +116,25 @@ public class LoginUI extends JFrame {
     }
 
     /*
-    * Handles login button action.
+    * Handles login button action. Authentication runs in the background and
+    * the login button is disabled until it answers.
     */
     private void onLogin(ActionEvent ev) {
         String user = usernameField.getText().trim();
         String pass = new String(passwordField.getPassword());
 
-        User authenticatedUser = UserDAO.authenticate(user, pass);
+        loginBtn.setEnabled(false);
+        loader.load("login", () -> UserDAO.authenticate(user, pass), authenticatedUser -> {
+            loginBtn.setEnabled(true);
+            onAuthenticated(authenticatedUser);
+        }, error -> {
+            loginBtn.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Unable to reach the database: " + error.getMessage(),
+                    "Login Failed", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    private void onAuthenticated(User authenticatedUser) {
         if (authenticatedUser != null) {
             // Log login timestamp
             String timestamp = LocalDateTime.now().format(LOGIN_DTF);
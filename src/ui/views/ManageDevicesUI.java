@@ -1,25 +1,41 @@
 package ui.views;
 
+import dao.DeviceChangeEvent;
+import dao.DeviceChangeListener;
 import dao.DeviceDAO;
+import dao.DeviceImporter;
+import dao.DeviceRepository;
+import dao.LogDAO;
 import model.Device;
+import model.DeviceStatus;
 import model.User;
+import ui.BackgroundLoader;
+import ui.SearchPipeline;
 import ui.components.Sidebar;
 import ui.components.StatusCellRenderer;
 import ui.components.ButtonRenderer;
 import ui.components.ButtonEditor;
+import ui.components.DeviceTableModel;
+import ui.dialogs.BulkEditDialog;
 import ui.dialogs.DeviceFormDialog;
+import ui.dialogs.ExportProgressDialog;
 import util.UIHelpers;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * UI for managing devices in the CLIMS system.
@@ -28,14 +44,20 @@ import java.util.regex.Pattern;
 
 public class ManageDevicesUI extends JFrame {
     private JTable table;
-    private DefaultTableModel model;
+    private DeviceTableModel model;
     private JTextField searchField;
-    private TableRowSorter<DefaultTableModel> sorter;
-    private String[] statusFilters = null;
+    private JButton importButton;
+    private JButton deleteButton;
+    private SearchPipeline<BitSet> search;
+    // ids matching the search text, or null when the search box is blank
+    private BitSet searchIds;
+    private TableRowSorter<DeviceTableModel> sorter;
+    private Set<DeviceStatus> statusFilters = null;
     private User currentUser;
     private JLabel timeLabel;
-    private static final String[] TABLE_COLUMNS = { "id", "Device Number", "Computer Parts", "Status", "Location",
-            "Functions" };
+    private BackgroundLoader loader;
+    // apply device changes from anywhere (dialogs, other screens) row by row
+    private final DeviceChangeListener deviceListener = e -> SwingUtilities.invokeLater(() -> onDevicesChanged(e));
 
     /*
     *
@@ -48,17 +70,28 @@ public class ManageDevicesUI extends JFrame {
      * Constructor for ManageDevicesUI.
      *
      * @param currentUser   The currently logged-in user.
-     * @param statusFilters Optional array of status filters to apply to the device list.
+     * @param statusFilters Optional set of statuses to limit the device list to.
      */
-    public ManageDevicesUI(User currentUser, String[] statusFilters) {
+    public ManageDevicesUI(User currentUser, Set<DeviceStatus> statusFilters) {
         this.currentUser = currentUser;
-        this.statusFilters = statusFilters;
+        this.statusFilters = statusFilters == null || statusFilters.isEmpty() ? null : EnumSet.copyOf(statusFilters);
         setTitle("CLIMS - Manage Devices");
         setSize(1200, 650);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         init();
         UIHelpers.startClock(timeLabel);
+        DeviceRepository.getInstance().addListener(deviceListener);
+    }
+
+    @Override
+    public void dispose() {
+        if (search != null) {
+            search.dispose();
+        }
+        DeviceRepository.getInstance().removeListener(deviceListener);
+        loader.dispose();
+        super.dispose();
     }
 
     /*
@@ -77,7 +110,9 @@ public class ManageDevicesUI extends JFrame {
 
         // Top header
         timeLabel = new JLabel();
-        JPanel header = UIHelpers.createHeader("MANAGE DEVICES", timeLabel, new Color(238, 232, 170));
+        JProgressBar busyIndicator = UIHelpers.createBusyIndicator();
+        loader = new BackgroundLoader(busyIndicator);
+        JPanel header = UIHelpers.createHeader("MANAGE DEVICES", timeLabel, busyIndicator, new Color(238, 232, 170));
         mainContent.add(header, BorderLayout.NORTH);
 
         // Content panel
@@ -94,10 +129,30 @@ public class ManageDevicesUI extends JFrame {
         addButton.addActionListener(e -> {
             DeviceFormDialog dlg = new DeviceFormDialog(this, null, currentUser);
             dlg.setVisible(true);
-            refresh();
         });
         actionPanel.add(addButton);
 
+        importButton = ui.UiUtils.makeButton("IMPORT CSV", new Color(238, 232, 170));
+        importButton.setFont(new Font("Arial", Font.BOLD, 11));
+        importButton.addActionListener(e -> importCsv());
+        actionPanel.add(importButton);
+
+        JButton bulkButton = ui.UiUtils.makeButton("EDIT SELECTED", new Color(238, 232, 170));
+        bulkButton.setFont(new Font("Arial", Font.BOLD, 11));
+        bulkButton.addActionListener(e -> editSelected());
+        actionPanel.add(bulkButton);
+
+        deleteButton = ui.UiUtils.makeButton("DELETE SELECTED", new Color(239, 154, 154));
+        deleteButton.setFont(new Font("Arial", Font.BOLD, 11));
+        deleteButton.addActionListener(e -> deleteSelected());
+        actionPanel.add(deleteButton);
+
+        JButton exportButton = ui.UiUtils.makeButton("EXPORT CSV", new Color(238, 232, 170));
+        exportButton.setFont(new Font("Arial", Font.BOLD, 11));
+        exportButton.addActionListener(e -> ExportProgressDialog.export(this, loader, "Export devices",
+                "devices.csv", DeviceDAO::exportCsv));
+        actionPanel.add(exportButton);
+
         JLabel searchLabel = new JLabel("SEARCH BAR");
         searchLabel.setFont(new Font("Arial", Font.BOLD, 11));
         actionPanel.add(searchLabel);
@@ -111,14 +166,12 @@ public class ManageDevicesUI extends JFrame {
         contentPanel.add(actionPanel, BorderLayout.NORTH);
 
         // Table
-        model = new DefaultTableModel(TABLE_COLUMNS, 0) {
-            public boolean isCellEditable(int r, int c) {
-                return c == 5; // Only "Functions" column editable
-            }
-        };
+        model = new DeviceTableModel();
 
         table = new JTable(model);
         table.setRowHeight(30);
+        // ctrl/shift-click several rows for EDIT SELECTED
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         // Hide the ID column in the view but keep it in the model (used internally)
         // Hide the ID column but keep it in the model for internal use
         table.getColumnModel().getColumn(0).setMinWidth(0);
@@ -140,6 +193,8 @@ public class ManageDevicesUI extends JFrame {
         table.getColumnModel().getColumn(5).setCellEditor(new ButtonEditor(this, currentUser, table, model));
 
         sorter = new TableRowSorter<>(model);
+        // re-sort and re-filter an edited row in place (its status may change)
+        sorter.setSortsOnUpdates(true);
         table.setRowSorter(sorter);
 
         JScrollPane scrollPane = new JScrollPane(table);
@@ -157,92 +212,239 @@ public class ManageDevicesUI extends JFrame {
                     int viewRow = table.getSelectedRow();
                     if (viewRow >= 0) {
                         int modelRow = table.convertRowIndexToModel(viewRow);
-                        int id = Integer.parseInt(model.getValueAt(modelRow, 0).toString());
-                        Device d = DeviceDAO.getById(id);
-                        if (d != null) {
-                            DeviceFormDialog dlg = new DeviceFormDialog(ManageDevicesUI.this, d, currentUser);
-                            dlg.setVisible(true);
-                            refresh();
-                        }
+                        openEditor(model.getDeviceAt(modelRow).getId());
                     }
                 }
             }
         });
 
-        // Search functionality
+        // Search functionality: debounced lookups in the device search index,
+        // off the EDT; the table is filtered to the matching ids
+        search = new SearchPipeline<>(loader, "search",
+                (text, narrowFrom) -> DeviceRepository.getInstance().search(text, narrowFrom),
+                ids -> {
+                    searchIds = ids;
+                    applyFilters();
+                });
         searchField.getDocument().addDocumentListener(new DocumentListener() {
-            private void onChange() {
-                String text = searchField.getText();
-                if (text.trim().length() == 0) {
-                    if (statusFilters == null)
-                        sorter.setRowFilter(null);
-                    else
-                        sorter.setRowFilter(makeStatusRowFilter(statusFilters));
-                } else {
-                    try {
-                        RowFilter<DefaultTableModel, Object> textFilter = RowFilter
-                                .regexFilter("(?i)" + Pattern.quote(text));
-                        if (statusFilters != null) {
-                            RowFilter<DefaultTableModel, Object> statusFilter = makeStatusRowFilter(statusFilters);
-                            sorter.setRowFilter(RowFilter.andFilter(java.util.Arrays.asList(statusFilter, textFilter)));
-                        } else {
-                            sorter.setRowFilter(textFilter);
-                        }
-                    } catch (Exception ex) {
-                        sorter.setRowFilter(null);
-                    }
-                }
-            }
-
             public void insertUpdate(DocumentEvent e) {
-                onChange();
+                search.queryChanged(searchField.getText());
             }
 
             public void removeUpdate(DocumentEvent e) {
-                onChange();
+                search.queryChanged(searchField.getText());
             }
 
             public void changedUpdate(DocumentEvent e) {
-                onChange();
+                search.queryChanged(searchField.getText());
             }
         });
     }
 
     /*
-    * Refreshes the device list in the table.
+    * Install the row filter for the current status filters and search result.
     */
-    public void refresh() {
-        model.setRowCount(0);
-        List<Device> devices = DeviceDAO.getAll();
-        for (Device d : devices) {
-            model.addRow(new Object[] {
-                    d.getId(),
-                    d.getDeviceNumber(),
-                    d.getType(),
-                    d.getStatus(),
-                    d.getLocation(),
-                    "Edit"
+    private void applyFilters() {
+        List<RowFilter<DeviceTableModel, Object>> filters = new ArrayList<>();
+        if (statusFilters != null) {
+            filters.add(makeStatusRowFilter(statusFilters));
+        }
+        if (searchIds != null) {
+            BitSet ids = searchIds;
+            filters.add(new RowFilter<DeviceTableModel, Object>() {
+                @Override
+                public boolean include(Entry<? extends DeviceTableModel, ? extends Object> entry) {
+                    int row = (Integer) entry.getIdentifier();
+                    return ids.get(entry.getModel().getDeviceAt(row).getId());
+                }
             });
         }
+        if (filters.isEmpty()) {
+            sorter.setRowFilter(null);
+        } else if (filters.size() == 1) {
+            sorter.setRowFilter(filters.get(0));
+        } else {
+            sorter.setRowFilter(RowFilter.andFilter(filters));
+        }
+    }
 
-        if (statusFilters != null && statusFilters.length > 0) {
-            sorter.setRowFilter(makeStatusRowFilter(statusFilters));
+    /*
+    * Refreshes the device list in the table from the device repository. The
+    * first load reads the table in the background; later refreshes are served
+    * from memory. A newer refresh supersedes one still in flight.
+    */
+    public void refresh() {
+        loader.load("devices", DeviceRepository.getInstance()::getAll, this::showDevices);
+    }
+
+    private void showDevices(List<Device> devices) {
+        model.setDevices(devices);
+        applyFilters();
+    }
+
+    /*
+    * Delete every selected device in one transaction, offering to undo. The
+    * devices are only tombstoned, so undo just clears the tombstones. Both
+    * run in the background; the table updates from the repository's change
+    * events and the delete button stays disabled until they finish.
+    */
+    private void deleteSelected() {
+        List<Integer> ids = selectedIds();
+        if (ids.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Select one or more devices first (Ctrl/Shift-click rows)");
+            return;
+        }
+        int choice = JOptionPane.showConfirmDialog(this, "Delete " + ids.size() + " selected devices?\nIDs "
+                + ui.UiUtils.describeIds(ids, 10), "Confirm Delete", JOptionPane.YES_NO_OPTION);
+        if (choice != JOptionPane.YES_OPTION) {
+            return;
         }
+        deleteButton.setEnabled(false);
+        loader.load("delete", () -> DeviceRepository.getInstance().bulkDelete(ids), deleted -> {
+            if (deleted < 0) {
+                deleteButton.setEnabled(true);
+                JOptionPane.showMessageDialog(this, "Delete failed");
+                return;
+            }
+            logAction("Deleted " + deleted + " devices (IDs " + describeIds(ids) + ")");
+            Object[] options = { "OK", "Undo" };
+            int undo = JOptionPane.showOptionDialog(this, "Deleted " + deleted + " devices", "Delete",
+                    JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
+            if (undo == 1) {
+                restoreDeleted(ids);
+            } else {
+                deleteButton.setEnabled(true);
+            }
+        }, error -> {
+            deleteButton.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Delete failed: " + error.getMessage());
+        });
+    }
+
+    // undo of deleteSelected; restore also re-reads the devices, so it runs in the background too
+    private void restoreDeleted(List<Integer> ids) {
+        loader.load("restore", () -> DeviceRepository.getInstance().restore(ids), restored -> {
+            deleteButton.setEnabled(true);
+            if (restored < 0) {
+                JOptionPane.showMessageDialog(this, "Undo failed");
+            } else {
+                logAction("Restored " + restored + " deleted devices (IDs " + describeIds(ids) + ")");
+            }
+        }, error -> {
+            deleteButton.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Undo failed: " + error.getMessage());
+        });
+    }
+
+    private List<Integer> selectedIds() {
+        int[] viewRows = table.getSelectedRows();
+        List<Integer> ids = new ArrayList<>(viewRows.length);
+        for (int viewRow : viewRows) {
+            ids.add(model.getDeviceAt(table.convertRowIndexToModel(viewRow)).getId());
+        }
+        return ids;
+    }
+
+    // first ids of a list for an action log line
+    private static String describeIds(List<Integer> ids) {
+        return ui.UiUtils.describeIds(ids, 50);
+    }
+
+    private void logAction(String description) {
+        if (currentUser != null) {
+            LogDAO.insertActionLog(currentUser.getId(), description,
+                    LocalDateTime.now().format(UIHelpers.DEFAULT_DTF));
+        }
+    }
+
+    /*
+    * Open the bulk edit dialog for every selected row. The table updates from
+    * the repository's change event.
+    */
+    private void editSelected() {
+        List<Integer> ids = selectedIds();
+        if (ids.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Select one or more devices first (Ctrl/Shift-click rows)");
+            return;
+        }
+        BulkEditDialog dlg = new BulkEditDialog(this, ids, currentUser);
+        dlg.setVisible(true);
     }
 
     /*
-    * Creates a RowFilter based on the provided status filters.
+    * Ask for a CSV file and import its devices in the background. The table
+    * picks up the new devices from the repository reload that follows.
     */
-    private RowFilter<DefaultTableModel, Object> makeStatusRowFilter(String[] statuses) {
-        if (statuses == null || statuses.length == 0)
-            return null;
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < statuses.length; i++) {
-            if (i > 0)
-                sb.append("|");
-            sb.append("(?:" + Pattern.quote(statuses[i]) + ")");
+    private void importCsv() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import devices from CSV");
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
-        String regex = "(?i)^(?:" + sb.toString() + ")$";
-        return RowFilter.regexFilter(regex, 3); // status column index
+        Path file = chooser.getSelectedFile().toPath();
+        int userId = currentUser != null ? currentUser.getId() : -1;
+        importButton.setEnabled(false);
+        loader.loadBulk("import", () -> DeviceImporter.importFile(file, userId), result -> {
+            importButton.setEnabled(true);
+            StringBuilder message = new StringBuilder(result.summary());
+            List<String> rejections = result.getRejections();
+            for (int i = 0; i < Math.min(rejections.size(), 10); i++) {
+                message.append("\n").append(rejections.get(i));
+            }
+            if (result.getRejectedCount() > 10) {
+                message.append("\n... and ").append(result.getRejectedCount() - 10).append(" more");
+            }
+            JOptionPane.showMessageDialog(this, message.toString(), "Import devices",
+                    result.isSuccess() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.ERROR_MESSAGE);
+        }, error -> {
+            importButton.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Import failed: " + error.getMessage(), "Import devices",
+                    JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    /*
+    * Apply a repository change to the table. Single inserts, updates and
+    * deletes touch only their row; a reload, or a change that arrives before
+    * the first load finished, falls back to a full refresh.
+    */
+    private void onDevicesChanged(DeviceChangeEvent e) {
+        if (e.getType() == DeviceChangeEvent.Type.RELOADED || !model.isLoaded()) {
+            refresh();
+        } else {
+            model.apply(e);
+        }
+        search.rerun(); // the change may affect which devices match
+    }
+
+    /**
+     * Look up a device and open the edit dialog for it. The table refreshes
+     * through the repository's change events once the dialog saves. Clicking
+     * another row before the lookup finishes replaces the pending request.
+     *
+     * @param id device id to edit
+     */
+    public void openEditor(int id) {
+        loader.load("open-device", () -> DeviceRepository.getInstance().getById(id), d -> {
+            if (d != null) {
+                DeviceFormDialog dlg = new DeviceFormDialog(this, d, currentUser);
+                dlg.setVisible(true);
+            }
+        });
+    }
+
+    /*
+    * Creates a RowFilter that keeps devices whose parsed status is in the set.
+    */
+    private RowFilter<DeviceTableModel, Object> makeStatusRowFilter(Set<DeviceStatus> statuses) {
+        return new RowFilter<DeviceTableModel, Object>() {
+            @Override
+            public boolean include(Entry<? extends DeviceTableModel, ? extends Object> entry) {
+                int row = (Integer) entry.getIdentifier();
+                DeviceStatus status = entry.getModel().getDeviceAt(row).getDeviceStatus();
+                return status != null && statuses.contains(status);
+            }
+        };
     }
 }
@@ -1,23 +1,35 @@
 package ui.views;
 
 import dao.LogDAO;
+import dao.LogQuery;
+import dao.UserDAO;
 import model.User;
+import ui.BackgroundLoader;
+import ui.components.LogFilterBar;
+import ui.components.PagedLogTableModel;
 import ui.components.Sidebar;
+import ui.dialogs.ExportProgressDialog;
 import util.UIHelpers;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableColumnModel;
 import java.awt.*;
-import java.util.List;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 
     /*
     * ReportsUI class - main frame for viewing reports (login and action logs)
     */
 
 public class ReportsUI extends JFrame {
-    private DefaultTableModel loginModel;
-    private DefaultTableModel actionModel;
+    private PagedLogTableModel loginModel;
+    private PagedLogTableModel actionModel;
+    private LogFilterBar loginFilters;
+    private LogFilterBar actionFilters;
     private JLabel timeLabel;
+    private BackgroundLoader loader;
     private User currentUser;
     // single-frame center area (CardLayout) so we don't open duplicate frames
     private JPanel centerPanel;
@@ -36,6 +48,12 @@ public class ReportsUI extends JFrame {
         UIHelpers.startClock(timeLabel);
     }
 
+    @Override
+    public void dispose() {
+        loader.dispose();
+        super.dispose();
+    }
+
     private void init() {
         setLayout(new BorderLayout());
 
@@ -49,7 +67,9 @@ public class ReportsUI extends JFrame {
 
         // Top header
         timeLabel = new JLabel();
-        JPanel header = UIHelpers.createHeader("REPORTS", timeLabel, new Color(238, 232, 170));
+        JProgressBar busyIndicator = UIHelpers.createBusyIndicator();
+        loader = new BackgroundLoader(busyIndicator);
+        JPanel header = UIHelpers.createHeader("REPORTS", timeLabel, busyIndicator, new Color(238, 232, 170));
         mainContent.add(header, BorderLayout.NORTH);
 
         // Content: build a menu card and two log cards inside a CardLayout so we reuse
@@ -107,55 +127,34 @@ public class ReportsUI extends JFrame {
     private void showActionLogsScreen() {
         // refresh data and switch to action card
         refreshActionLogs();
+        loadUsers();
         centerCard.show(centerPanel, "ACTION");
     }
 
     private void showLoginLogsScreen() {
         // refresh data and switch to login card
         refreshLoginLogs();
+        loadUsers();
         centerCard.show(centerPanel, "LOGIN");
     }
 
     private JPanel buildActionPanel() {
-        JPanel panel = buildLogPanel("Actions", new String[] { "id", "Actions", "User", "Time" });
-        JScrollPane actionScroll = (JScrollPane) ((JPanel) panel.getComponent(1)).getComponent(0);
-        JTable actionTable = (JTable) actionScroll.getViewport().getView();
-        actionModel = (DefaultTableModel) actionTable.getModel();
-        // wire date field action (top panel's right textfield is index 1 in the right
-        // panel)
-        JTextField dateField = findDateField(panel);
-        dateField.addActionListener(e -> {
-            String datePrefix = dateField.getText().trim();
-            if (datePrefix.isEmpty()) {
-                refreshActionLogs();
-            } else {
-                refreshActionLogsByDate(datePrefix);
-            }
-        });
-        return panel;
+        actionFilters = new LogFilterBar(LogQuery.Kind.ACTION);
+        actionModel = new PagedLogTableModel(new String[] { "id", "Actions", "User", "Time" }, loader);
+        actionFilters.setOnApply(() -> applyFilters(actionFilters, actionModel));
+        return buildLogPanel(actionFilters, actionModel);
     }
 
     private JPanel buildLoginPanel() {
-        JPanel panel = buildLogPanel("Logs", new String[] { "id", "Logs", "User", "Time" });
-        JScrollPane loginScroll = (JScrollPane) ((JPanel) panel.getComponent(1)).getComponent(0);
-        JTable loginTable = (JTable) loginScroll.getViewport().getView();
-        loginModel = (DefaultTableModel) loginTable.getModel();
-        JTextField loginDateField = findDateField(panel);
-        loginDateField.addActionListener(e -> {
-            String datePrefix = loginDateField.getText().trim();
-            if (datePrefix.isEmpty()) {
-                refreshLoginLogs();
-            } else {
-                refreshLoginLogsByDate(datePrefix);
-            }
-        });
-        return panel;
+        loginFilters = new LogFilterBar(LogQuery.Kind.LOGIN);
+        loginModel = new PagedLogTableModel(new String[] { "id", "Logs", "User", "Time" }, loader);
+        loginFilters.setOnApply(() -> applyFilters(loginFilters, loginModel));
+        return buildLogPanel(loginFilters, loginModel);
     }
 
-    // Helper: build a log view with a back button and a date field. Returns a panel
-    // where index 0 is top panel and index 1 is the center wrapper containing the
-    // scroll pane.
-    private JPanel buildLogPanel(String centerLabel, String[] columns) {
+    // Helper: build a log view with a back button, an export button and the
+    // filter bar above the paged table.
+    private JPanel buildLogPanel(LogFilterBar filters, PagedLogTableModel tm) {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(Color.WHITE);
 
@@ -168,22 +167,35 @@ public class ReportsUI extends JFrame {
         back.addActionListener(e -> centerCard.show(centerPanel, "MENU"));
         left.add(back);
         top.add(left, BorderLayout.WEST);
-
-        JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-        right.setBackground(Color.WHITE);
-        right.add(new JLabel("Choose Date: mm/dd/yyyy"));
-        JTextField dateField = new JTextField(15);
-        right.add(dateField);
-        top.add(right, BorderLayout.EAST);
+        top.add(filters, BorderLayout.EAST);
 
         panel.add(top, BorderLayout.NORTH);
 
-        DefaultTableModel tm = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int r, int c) {
-                return false;
+        // export streams every row of the current view (with its filters)
+        JButton export = new JButton("Export CSV");
+        export.addActionListener(e -> {
+            LogQuery query = tm.getQuery();
+            if (query != null) {
+                String what = query.getKind() == LogQuery.Kind.ACTION ? "action logs" : "login logs";
+                ExportProgressDialog.export(this, loader, "Export " + what, what.replace(' ', '_') + ".csv",
+                        (file, monitor) -> LogDAO.exportCsv(query, file, monitor));
             }
-        };
+        });
+        left.add(export);
+        // rows are fetched page by page as the table scrolls; header clicks
+        // re-query in the new order instead of sorting rows in memory
         JTable table = new JTable(tm);
+        JTableHeader tableHeader = table.getTableHeader();
+        tableHeader.setReorderingAllowed(false);
+        tableHeader.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(tableHeader.columnAtPoint(e.getPoint()));
+                tm.toggleSort(column);
+                updateHeaders(table, tm);
+            }
+        });
+        updateHeaders(table, tm);
         JScrollPane sp = new JScrollPane(table);
         JPanel wrap = new JPanel(new BorderLayout());
         wrap.setBackground(Color.WHITE);
@@ -193,53 +205,42 @@ public class ReportsUI extends JFrame {
         return panel;
     }
 
-    // Find the date field placed on the top right of a log panel
-    private JTextField findDateField(JPanel logPanel) {
-        Component top = logPanel.getComponent(0);
-        if (top instanceof JPanel) {
-            JPanel topPanel = (JPanel) top;
-            Component right = ((BorderLayout) topPanel.getLayout()).getLayoutComponent(topPanel, BorderLayout.EAST);
-            if (right instanceof JPanel) {
-                for (Component c : ((JPanel) right).getComponents()) {
-                    if (c instanceof JTextField)
-                        return (JTextField) c;
-                }
-            }
+    private void updateHeaders(JTable table, PagedLogTableModel tm) {
+        TableColumnModel columns = table.getColumnModel();
+        for (int i = 0; i < columns.getColumnCount(); i++) {
+            TableColumn column = columns.getColumn(i);
+            column.setHeaderValue(tm.getHeader(column.getModelIndex()));
         }
-        return new JTextField(15); // fallback (shouldn't happen)
+        table.getTableHeader().repaint();
     }
 
-    // Removed separate dialogs; both logs are shown inside the main frame tabs.
-
-    private void refreshLoginLogs() {
-        loginModel.setRowCount(0);
-        List<String[]> logs = LogDAO.getLoginLogs();
-        for (String[] log : logs) {
-            loginModel.addRow(log);
+    private void applyFilters(LogFilterBar filters, PagedLogTableModel model) {
+        LogQuery query = filters.toQuery();
+        if (query == null) {
+            JOptionPane.showMessageDialog(this, "Enter dates as mm/dd/yyyy", "Reports",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
         }
+        model.setQuery(query);
     }
 
-    private void refreshLoginLogsByDate(String datePrefix) {
-        loginModel.setRowCount(0);
-        List<String[]> logs = LogDAO.getLoginLogsByDatePrefix(datePrefix);
-        for (String[] log : logs) {
-            loginModel.addRow(log);
-        }
+    // the user filters list every account; refreshed each time a log screen opens
+    private void loadUsers() {
+        loader.load("users", UserDAO::getAll, users -> {
+            actionFilters.setUsers(users);
+            loginFilters.setUsers(users);
+        });
     }
 
-    private void refreshActionLogs() {
-        actionModel.setRowCount(0);
-        List<String[]> logs = LogDAO.getActionLogs();
-        for (String[] log : logs) {
-            actionModel.addRow(log);
-        }
+    // Removed separate dialogs; both logs are shown inside the main frame tabs.
+
+    private void refreshLoginLogs() {
+        loginFilters.clear();
+        loginModel.setQuery(new LogQuery(LogQuery.Kind.LOGIN));
     }
 
-    private void refreshActionLogsByDate(String datePrefix) {
-        actionModel.setRowCount(0);
-        List<String[]> logs = LogDAO.getActionLogsByDatePrefix(datePrefix);
-        for (String[] log : logs) {
-            actionModel.addRow(log);
-        }
+    private void refreshActionLogs() {
+        actionFilters.clear();
+        actionModel.setQuery(new LogQuery(LogQuery.Kind.ACTION));
     }
 }
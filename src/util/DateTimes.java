@@ -0,0 +1,82 @@
+package util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Conversions between the text timestamps shown in the UI and the epoch-millis
+ * values stored alongside them so logs can be range-queried and sorted.
+ */
+public final class DateTimes {
+    /** Date-only format used by the report filters (e.g. 11/16/2025). */
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    // Log rows were written with the default locale; accept US AM/PM as well
+    private static final DateTimeFormatter[] LOG_PARSERS = {
+            UIHelpers.DEFAULT_DTF,
+            DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm:ss a", Locale.US) };
+
+    private DateTimes() {
+    }
+
+    /**
+     * Parse a log timestamp in the {@link UIHelpers#DEFAULT_DTF} format.
+     *
+     * @param text timestamp text such as "11/16/2025 03:45:12 PM"
+     * @return epoch milliseconds in the system zone, or null if unparsable
+     */
+    public static Long parseLogTimestamp(String text) {
+        if (text == null) {
+            return null;
+        }
+        String trimmed = text.trim();
+        for (DateTimeFormatter parser : LOG_PARSERS) {
+            try {
+                return toEpochMillis(LocalDateTime.parse(trimmed, parser));
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse a date typed into a report filter.
+     *
+     * @param text date text in MM/dd/yyyy format
+     * @return the date, or null if the text is not a complete date
+     */
+    public static LocalDate parseDate(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(text.trim(), DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Epoch milliseconds of the start of the given day in the system zone.
+     *
+     * @param date calendar date
+     * @return epoch milliseconds at local midnight
+     */
+    public static long startOfDay(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Convert a local date/time to epoch milliseconds in the system zone.
+     *
+     * @param dateTime local date/time
+     * @return epoch milliseconds
+     */
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,138 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of
+ * HdrHistogram: every power of two is split into 32 equal sub-buckets, so any
+ * recorded value is reported within about 3% of its true value while the
+ * whole range from 1 ns to about half an hour fits in 1,184 counters.
+ *
+ * Recording is one array increment plus a sum and a max update, with no
+ * allocation and no locks, so it is cheap enough to time every DAO call.
+ */
+public final class LatencyHistogram {
+    // sub-buckets per power of two is 2^(SUB_BITS - 1); values below 2^SUB_BITS are exact
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF = SUB_COUNT / 2;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = SUB_COUNT + (MAX_EXPONENT - SUB_BITS + 1) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record one value. Negative values count as 0; values beyond the range
+     * are clamped into the last bucket but still counted in the max.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_VALUE)));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Copy the current counts. Values recorded while the copy is taken may or
+     * may not be included.
+     *
+     * @return point-in-time snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, count.sum(), sum.sum(), max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS + 1)); // in [HALF, SUB_COUNT)
+        return SUB_COUNT + (exponent - SUB_BITS) * HALF + (sub - HALF);
+    }
+
+    // middle of a bucket's value range
+    static long valueOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = (index - SUB_COUNT) / HALF + SUB_BITS;
+        long sub = (index - SUB_COUNT) % HALF + HALF;
+        int shift = exponent - SUB_BITS + 1;
+        return (sub << shift) + (1L << shift) / 2;
+    }
+
+    /**
+     * Immutable copy of a histogram's counts.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /** @return number of recorded values */
+        public long getCount() {
+            return count;
+        }
+
+        /** @return mean of the recorded values in nanoseconds (0 if none) */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /** @return largest recorded value in nanoseconds */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Get a percentile.
+         *
+         * @param quantile 0.5 for the median, 0.99 for p99, ...
+         * @return value in nanoseconds (0 if nothing was recorded); never
+         *         more than the max
+         */
+        public long getPercentile(double quantile) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(valueOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
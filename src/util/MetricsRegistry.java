@@ -0,0 +1,216 @@
+package util;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Application-wide call counts, error counts and latency histograms, keyed by
+ * operation name such as "DeviceDAO.getAll" or "ConnectionPool.open".
+ *
+ * DAO methods take {@link System#nanoTime()} on entry, {@link #record} the
+ * elapsed time in a finally block and count failures with {@link #error} in
+ * their catch block. Every {@code clims.metrics.dumpSec}
+ * seconds (default 60, 0 to disable) the numbers are appended to
+ * {@code clims.metrics.file} (default lib/logs/metrics.log), rolled over at
+ * 1 MB. Admins can watch them live in the Diagnostics screen.
+ */
+public final class MetricsRegistry {
+    private static final long DUMP_SEC = Math.max(0, Long.getLong("clims.metrics.dumpSec", 60L));
+    private static final String DUMP_FILE = System.getProperty("clims.metrics.file", "lib/logs/metrics.log");
+    private static final long DUMP_MAX_BYTES = 1024 * 1024;
+    private static final DateTimeFormatter DUMP_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+    private final long startedNanos = System.nanoTime();
+    private ScheduledExecutorService dumper; // guarded by this
+    private RollingFileLog dumpLog; // guarded by this
+    // calls per operation at the previous dump, for the rate column
+    private final Map<String, Long> lastDumpCalls = new HashMap<>(); // guarded by this
+    private long lastDumpNanos = startedNanos; // guarded by this
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Get the shared registry.
+     *
+     * @return application-wide registry
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Count a failed call of an operation in the shared registry. The call
+     * itself is still recorded with {@link #record}.
+     *
+     * @param name operation name
+     */
+    public static void error(String name) {
+        INSTANCE.metric(name).errors.increment();
+    }
+
+    /**
+     * Record a call that was timed by the caller in the shared registry.
+     *
+     * @param name  operation name
+     * @param nanos latency in nanoseconds
+     */
+    public static void record(String name, long nanos) {
+        INSTANCE.metric(name).latency.record(nanos);
+    }
+
+    private Metric metric(String name) {
+        Metric m = metrics.get(name);
+        return m != null ? m : metrics.computeIfAbsent(name, n -> new Metric());
+    }
+
+    /**
+     * Copy every operation's numbers.
+     *
+     * @return snapshots sorted by operation name
+     */
+    public List<Snapshot> snapshot() {
+        List<Snapshot> list = new ArrayList<>();
+        for (Map.Entry<String, Metric> e : metrics.entrySet()) {
+            list.add(new Snapshot(e.getKey(), e.getValue().errors.sum(), e.getValue().latency.snapshot()));
+        }
+        list.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return list;
+    }
+
+    /** @return seconds since the registry was created */
+    public double getUptimeSeconds() {
+        return (System.nanoTime() - startedNanos) / 1e9;
+    }
+
+    /**
+     * Start the periodic dump on a daemon thread. Does nothing if already
+     * started or if {@code clims.metrics.dumpSec} is 0.
+     */
+    public synchronized void start() {
+        if (dumper != null || DUMP_SEC == 0) {
+            return;
+        }
+        dumpLog = new RollingFileLog(DUMP_FILE, DUMP_MAX_BYTES, 3);
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "clims-metrics-dump");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        dumper.scheduleWithFixedDelay(this::dumpSafely, DUMP_SEC, DUMP_SEC, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the periodic dump, writing a final one first.
+     */
+    public synchronized void shutdown() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+            dump();
+        }
+    }
+
+    /**
+     * Append the current numbers to the metrics file. Does nothing before
+     * {@link #start}.
+     */
+    public synchronized void dump() {
+        if (dumpLog == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastDumpNanos) / 1e9);
+        StringBuilder out = new StringBuilder();
+        out.append(LocalDateTime.now().format(DUMP_TIME))
+                .append(String.format(Locale.ROOT, " metrics over %.0f s%n", seconds))
+                .append(String.format(Locale.ROOT, "  %-32s %10s %8s %8s %9s %9s %9s %9s %9s%n", "operation", "calls",
+                        "calls/s", "errors", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Snapshot s : snapshot()) {
+            Long previous = lastDumpCalls.put(s.getName(), s.getCalls());
+            long delta = s.getCalls() - (previous == null ? 0 : previous);
+            out.append(String.format(Locale.ROOT, "  %-32s %10d %8.1f %8d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    s.getName(), s.getCalls(), delta / seconds, s.getErrors(), s.getMeanMillis(),
+                    s.getPercentileMillis(0.50), s.getPercentileMillis(0.90), s.getPercentileMillis(0.99),
+                    s.getMaxMillis()));
+        }
+        lastDumpNanos = now;
+        dumpLog.append(out.toString());
+    }
+
+    private void dumpSafely() {
+        try {
+            dump();
+        } catch (RuntimeException e) {
+            System.out.println("Metrics dump error: " + e.getMessage());
+        }
+    }
+
+    private static final class Metric {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * Numbers of one operation at a point in time.
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long errors;
+        private final LatencyHistogram.Snapshot latency;
+
+        private Snapshot(String name, long errors, LatencyHistogram.Snapshot latency) {
+            this.name = name;
+            this.errors = errors;
+            this.latency = latency;
+        }
+
+        /** @return operation name */
+        public String getName() {
+            return name;
+        }
+
+        /** @return recorded calls, failed ones included */
+        public long getCalls() {
+            return latency.getCount();
+        }
+
+        /** @return failed calls */
+        public long getErrors() {
+            return errors;
+        }
+
+        /** @return mean latency in milliseconds */
+        public double getMeanMillis() {
+            return latency.getMean() / 1e6;
+        }
+
+        /**
+         * @param quantile 0.5 for the median, 0.99 for p99, ...
+         * @return latency percentile in milliseconds
+         */
+        public double getPercentileMillis(double quantile) {
+            return latency.getPercentile(quantile) / 1e6;
+        }
+
+        /** @return slowest call in milliseconds */
+        public double getMaxMillis() {
+            return latency.getMax() / 1e6;
+        }
+    }
+}
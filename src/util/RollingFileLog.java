@@ -0,0 +1,88 @@
+package util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only text log that rolls over by size: when the file would grow past
+ * {@code maxBytes} it is renamed to {@code <name>.1} (older copies shift to
+ * {@code .2}, {@code .3}, ...) and a new file is started, so diagnostics can
+ * be left on without filling the disk.
+ *
+ * Writes are synchronized; failures are printed once and otherwise ignored,
+ * because a diagnostics log must never break the application.
+ */
+public final class RollingFileLog {
+    private final Path file;
+    private final long maxBytes;
+    private final int backups;
+    private boolean failed; // guarded by this
+
+    /**
+     * Constructor. The parent directory is created on the first write.
+     *
+     * @param file     log file, e.g. lib/logs/metrics.log
+     * @param maxBytes size at which the file is rolled over
+     * @param backups  rolled-over copies to keep (0 just truncates)
+     */
+    public RollingFileLog(String file, long maxBytes, int backups) {
+        this.file = Paths.get(file);
+        this.maxBytes = Math.max(1024, maxBytes);
+        this.backups = Math.max(0, backups);
+    }
+
+    /** @return the file being written */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Append text, rolling the file over first if it would exceed the size
+     * limit. A trailing line separator is added if missing.
+     *
+     * @param text one or more lines
+     */
+    public synchronized void append(String text) {
+        String entry = text.endsWith("\n") ? text : text + System.lineSeparator();
+        byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            if (Files.exists(file) && Files.size(file) + bytes.length > maxBytes) {
+                roll();
+            }
+            Files.write(file, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            failed = false;
+        } catch (IOException e) {
+            if (!failed) {
+                failed = true;
+                System.out.println("Write " + file + " error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        if (backups == 0) {
+            Files.delete(file);
+            return;
+        }
+        for (int i = backups - 1; i >= 1; i--) {
+            Path older = backup(i);
+            if (Files.exists(older)) {
+                Files.move(older, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path backup(int n) {
+        return file.resolveSibling(file.getFileName() + "." + n);
+    }
+}
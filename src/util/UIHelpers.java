@@ -29,6 +29,21 @@ public class UIHelpers {
      * @return a configured header JPanel
      */
     public static JPanel createHeader(String title, JLabel timeLabel, Color bgColor) {
+        return createHeader(title, timeLabel, null, bgColor);
+    }
+
+    /**
+     * Create a header panel with a title on the left and, on the right, an
+     * optional busy indicator next to the time label.
+     *
+     * @param title         the header title text
+     * @param timeLabel     a JLabel that will display the current time
+     * @param busyIndicator component shown while background work runs (may be
+     *                      null)
+     * @param bgColor       background color of the header
+     * @return a configured header JPanel
+     */
+    public static JPanel createHeader(String title, JLabel timeLabel, JComponent busyIndicator, Color bgColor) {
         JPanel header = new JPanel(new BorderLayout());
         header.setBackground(bgColor);
         header.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
@@ -38,11 +53,33 @@ public class UIHelpers {
         header.add(titleLabel, BorderLayout.WEST);
 
         timeLabel.setFont(new Font("Monospaced", Font.PLAIN, 14));
-        header.add(timeLabel, BorderLayout.EAST);
+        if (busyIndicator == null) {
+            header.add(timeLabel, BorderLayout.EAST);
+        } else {
+            JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+            right.setOpaque(false);
+            right.add(busyIndicator);
+            right.add(timeLabel);
+            header.add(right, BorderLayout.EAST);
+        }
 
         return header;
     }
 
+    /**
+     * Create a small indeterminate progress bar used as a "loading" indicator
+     * in screen headers. It starts hidden.
+     *
+     * @return a configured progress bar
+     */
+    public static JProgressBar createBusyIndicator() {
+        JProgressBar bar = new JProgressBar();
+        bar.setIndeterminate(true);
+        bar.setPreferredSize(new Dimension(90, 12));
+        bar.setVisible(false);
+        return bar;
+    }
+
     /**
      * Create an informational card panel used on the dashboard.
      * The card contains a large count label (center) and a title (bottom).
@@ -0,0 +1,307 @@
+package tools;
+
+import dao.DeviceDAO;
+import database.ConnectionPool;
+import database.DatabaseConnection;
+import database.DatabaseInit;
+import model.Device;
+import model.DeviceStatus;
+import util.UIHelpers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Headless generator of realistic CLIMS data: users, devices, login logs and
+ * action logs, written in batched transactions.
+ *
+ * The same seed always produces the same rows. Each table draws from its own
+ * random stream, so changing one count does not change the rows generated
+ * for the others. Log rows are spread over the last {@code days} days in id
+ * order, during working hours, like logs written by the application.
+ *
+ * <pre>
+ * java -cp ... tools.DataGenerator --db=build/load.sqlite --devices=1000000 \
+ *     --users=200 --login-logs=2000000 --action-logs=2000000 --seed=42
+ * </pre>
+ *
+ * Rows are appended; run against a fresh file for exact counts.
+ */
+public final class DataGenerator {
+    private static final int DEFAULT_BATCH = 5000;
+
+    private static final String[] TYPES = { "Desktop", "Laptop", "Monitor", "Keyboard", "Mouse", "Printer",
+            "Projector", "Router", "Switch", "UPS" };
+    private static final String[] BRANDS = { "Dell", "HP", "Lenovo", "Acer", "Asus", "Epson", "Cisco", "APC",
+            "Logitech", "Samsung" };
+    private static final String[] LOCATIONS = { "Computer Lab 1", "Computer Lab 2", "Computer Lab 3",
+            "Computer Lab 4", "Library", "Faculty Room", "Registrar", "Storage Room", "Server Room" };
+    private static final String[] NOTES = { "", "", "", "Needs cleaning", "Loose cable", "Replaced keyboard",
+            "For checking", "Reported by student" };
+    // most devices are in use; a few are broken, missing or disposed
+    private static final DeviceStatus[] STATUS_WEIGHTS = { DeviceStatus.IN_USE, DeviceStatus.IN_USE,
+            DeviceStatus.IN_USE, DeviceStatus.IN_USE, DeviceStatus.IN_USE, DeviceStatus.IN_USE, DeviceStatus.NEW,
+            DeviceStatus.OLD, DeviceStatus.REPAIRED, DeviceStatus.UNDER_MAINTENANCE, DeviceStatus.BROKEN,
+            DeviceStatus.MISSING, DeviceStatus.DISPOSED };
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final long WORKDAY_START_MS = 7L * 60 * 60 * 1000;
+    private static final long WORKDAY_LENGTH_MS = 12L * 60 * 60 * 1000;
+
+    private final long seed;
+    private final int days;
+    private final int batchSize;
+    private final long endMillis;
+
+    /**
+     * Constructor
+     *
+     * @param seed      random seed; equal seeds give equal data
+     * @param days      how many days back the log timestamps reach
+     * @param batchSize rows per transaction
+     */
+    public DataGenerator(long seed, int days, int batchSize) {
+        this.seed = seed;
+        this.days = Math.max(1, days);
+        this.batchSize = Math.max(1, batchSize);
+        // end of yesterday, so generated logs never look newer than real ones
+        this.endMillis = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public static void main(String[] args) throws SQLException {
+        Options options = new Options(args);
+        if (options.has("db")) {
+            System.setProperty("clims.db.path", options.get("db", null));
+        }
+        DataGenerator generator = new DataGenerator(options.getLong("seed", 42), options.getInt("days", 365),
+                options.getInt("batch", DEFAULT_BATCH));
+        DatabaseInit.initialize();
+        System.out.println("Generating into " + DatabaseConnection.getDatabasePath());
+        try {
+            generator.report("users", () -> generator.users(options.getInt("users", 50)));
+            generator.report("devices", () -> generator.devices(options.getInt("devices", 10_000)));
+            generator.report("login_logs", () -> generator.loginLogs(options.getInt("login-logs", 100_000)));
+            generator.report("action_logs", () -> generator.actionLogs(options.getInt("action-logs", 100_000)));
+            try (Connection connection = DatabaseConnection.connect(); Statement st = connection.createStatement()) {
+                st.execute("ANALYZE");
+            }
+        } finally {
+            ConnectionPool.getInstance().close();
+        }
+    }
+
+    /**
+     * Add staff accounts named staff0001, staff0002, ... (password
+     * "password"). Existing names are skipped.
+     *
+     * @param count accounts to add
+     * @return accounts inserted
+     * @throws SQLException if the database cannot be written
+     */
+    public int users(int count) throws SQLException {
+        String sql = "INSERT OR IGNORE INTO users (username,password,role) VALUES (?,?,?)";
+        int inserted = 0;
+        try (Connection connection = DatabaseConnection.connect();
+                PreparedStatement ps = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            try {
+                for (int i = 1; i <= count; i++) {
+                    ps.setString(1, String.format(Locale.ROOT, "staff%04d", i));
+                    ps.setString(2, "password");
+                    ps.setString(3, i % 20 == 0 ? "admin" : "staff");
+                    inserted += ps.executeUpdate();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Add devices through {@link DeviceDAO#insertBatch}.
+     *
+     * @param count devices to add
+     * @return devices inserted, or -1 on error
+     */
+    public int devices(int count) {
+        Random random = new Random(seed ^ 0x44455649L);
+        int first = DeviceDAO.countAll();
+        return DeviceDAO.insertBatch(new Iterator<Device>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Device next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return device(random, first + next++);
+            }
+        });
+    }
+
+    /**
+     * Add login/logout pairs of random users.
+     *
+     * @param count rows to add
+     * @return rows inserted
+     * @throws SQLException if the database cannot be written
+     */
+    public int loginLogs(int count) throws SQLException {
+        Random random = new Random(seed ^ 0x4C4F47494EL);
+        List<Integer> userIds = userIds();
+        int[] sessionUser = { 0 };
+        return insertLogs("INSERT INTO login_logs (user_id,action_type,timestamp,timestamp_ms) VALUES (?,?,?,?)",
+                count, (ps, i) -> {
+                    // even rows log in a random user, odd rows log them out
+                    if (i % 2 == 0) {
+                        sessionUser[0] = userIds.get(random.nextInt(userIds.size()));
+                    }
+                    ps.setInt(1, sessionUser[0]);
+                    ps.setString(2, i % 2 == 0 ? "<User> login" : "<User> logout");
+                });
+    }
+
+    /**
+     * Add action logs in the formats the screens write (added, updated,
+     * deleted, bulk updated, imported).
+     *
+     * @param count rows to add
+     * @return rows inserted
+     * @throws SQLException if the database cannot be written
+     */
+    public int actionLogs(int count) throws SQLException {
+        Random random = new Random(seed ^ 0x414354494FL);
+        List<Integer> userIds = userIds();
+        int devices = Math.max(1, DeviceDAO.countAll());
+        return insertLogs(
+                "INSERT INTO action_logs (user_id,action_description,timestamp,timestamp_ms) VALUES (?,?,?,?)",
+                count, (ps, i) -> {
+                    ps.setInt(1, userIds.get(random.nextInt(userIds.size())));
+                    ps.setString(2, actionText(random, devices));
+                });
+    }
+
+    private interface RowBinder {
+        void bind(PreparedStatement ps, int index) throws SQLException;
+    }
+
+    /*
+     * Insert count log rows in batched transactions. The binder sets user_id
+     * and the text; timestamps are filled in here.
+     */
+    private int insertLogs(String sql, int count, RowBinder binder) throws SQLException {
+        int inserted = 0;
+        try (Connection connection = DatabaseConnection.connect();
+                PreparedStatement ps = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            try {
+                for (int i = 0; i < count; i++) {
+                    long millis = timestampOf(i, count);
+                    binder.bind(ps, i);
+                    ps.setString(3, LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault())
+                            .format(UIHelpers.DEFAULT_DTF));
+                    ps.setLong(4, millis);
+                    ps.addBatch();
+                    if ((i + 1) % batchSize == 0 || i == count - 1) {
+                        ps.executeBatch();
+                        connection.commit();
+                        inserted = i + 1;
+                    }
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        return inserted;
+    }
+
+    // row index -> a time during working hours, increasing with the index
+    private long timestampOf(int index, int count) {
+        double position = (double) index * days / count;
+        int day = (int) position;
+        long dayStart = endMillis - (long) (days - day) * DAY_MS;
+        return dayStart + WORKDAY_START_MS + (long) ((position - day) * WORKDAY_LENGTH_MS);
+    }
+
+    private List<Integer> userIds() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.connectForRead();
+                Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery("SELECT id FROM users ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private static Device device(Random random, int number) {
+        String type = TYPES[random.nextInt(TYPES.length)];
+        Device d = new Device();
+        d.setDeviceNumber(String.format(Locale.ROOT, "%s-%07d", type.substring(0, 3).toUpperCase(Locale.ROOT),
+                number + 1));
+        d.setType(type);
+        d.setBrand(BRANDS[random.nextInt(BRANDS.length)]);
+        d.setModel(d.getBrand().charAt(0) + "" + (100 + random.nextInt(900)));
+        d.setStatus(STATUS_WEIGHTS[random.nextInt(STATUS_WEIGHTS.length)].getLabel());
+        d.setLocation(LOCATIONS[random.nextInt(LOCATIONS.length)]);
+        d.setPurchaseDate(String.format(Locale.ROOT, "%02d/%02d/%d", 1 + random.nextInt(12), 1 + random.nextInt(28),
+                2012 + random.nextInt(13)));
+        d.setNotes(NOTES[random.nextInt(NOTES.length)]);
+        d.setCost(Math.round((500 + random.nextDouble() * 60_000) * 100) / 100.0);
+        return d;
+    }
+
+    private static String actionText(Random random, int devices) {
+        int id = 1 + random.nextInt(devices);
+        switch (random.nextInt(10)) {
+            case 0:
+            case 1:
+                return "Added device: " + String.format(Locale.ROOT, "DEV-%07d", id);
+            case 2:
+                return "Deleted 1 devices (IDs " + id + ")";
+            case 3:
+                return "Bulk updated 3 devices: status=" + STATUS_WEIGHTS[random.nextInt(STATUS_WEIGHTS.length)]
+                        + " (IDs " + id + ", " + (id + 1) + ", " + (id + 2) + ")";
+            default:
+                return "Updated device: " + String.format(Locale.ROOT, "DEV-%07d", id) + " (ID " + id + ")";
+        }
+    }
+
+    private interface Step {
+        int run() throws SQLException;
+    }
+
+    private void report(String table, Step step) throws SQLException {
+        long start = System.nanoTime();
+        int rows = step.run();
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.printf(Locale.ROOT, "%-12s %,12d rows %,8d ms %,10.0f rows/s%n", table, rows, millis,
+                rows * 1000.0 / millis);
+    }
+}
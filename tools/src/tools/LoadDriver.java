@@ -0,0 +1,263 @@
+package tools;
+
+import dao.AuditLogWriter;
+import dao.DeviceRepository;
+import dao.LogDAO;
+import dao.LogQuery;
+import dao.UserDAO;
+import database.ConnectionPool;
+import database.DatabaseConnection;
+import database.DatabaseInit;
+import model.Device;
+import model.DeviceStatus;
+import model.User;
+import util.UIHelpers;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Multi-threaded load test through the real DAOs: each thread repeatedly
+ * picks an operation from a weighted mix and times it.
+ * <ul>
+ * <li>login: authenticate a user and write a login log</li>
+ * <li>edit: change a device's status and notes through the device repository
+ * and write an action log</li>
+ * <li>report: count and fetch the first page of a log report with a random
+ * date range and sort order</li>
+ * <li>search: search the devices as the Manage Devices screen does</li>
+ * </ul>
+ * After the warm-up, every operation's latency is recorded; the run ends
+ * with throughput and p50/p90/p99/max latency per operation.
+ *
+ * <pre>
+ * java -cp ... tools.LoadDriver --db=build/load.sqlite --threads=8 --seconds=30 \
+ *     --mix=login:10,edit:30,report:40,search:20
+ * </pre>
+ *
+ * Generate data first with {@link DataGenerator}; users it creates have the
+ * password "password".
+ */
+public final class LoadDriver {
+    private enum Op {
+        LOGIN, EDIT, REPORT, SEARCH
+    }
+
+    private static final String[] SEARCH_TERMS = { "lab 2", "dell", "des-00012", "printer", "library", "broken",
+            "cable", "hp", "mon-0004", "server room" };
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private final List<User> users;
+    private final List<Integer> deviceIds;
+    private final Op[] mix;
+
+    private LoadDriver(List<User> users, List<Integer> deviceIds, Op[] mix) {
+        this.users = users;
+        this.deviceIds = deviceIds;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Options options = new Options(args);
+        if (options.has("db")) {
+            System.setProperty("clims.db.path", options.get("db", null));
+        }
+        int threads = options.getInt("threads", 8);
+        long warmupMs = options.getLong("warmup", 5) * 1000;
+        long measureMs = options.getLong("seconds", 30) * 1000;
+        long seed = options.getLong("seed", 42);
+        Op[] mix = parseMix(options.get("mix", "login:10,edit:30,report:40,search:20"));
+
+        DatabaseInit.initialize();
+        System.out.println("Loading devices from " + DatabaseConnection.getDatabasePath());
+        List<Integer> deviceIds = new ArrayList<>();
+        for (Device d : DeviceRepository.getInstance().getAll()) {
+            deviceIds.add(d.getId());
+        }
+        List<User> users = UserDAO.getAll();
+        if (deviceIds.isEmpty() && Arrays.asList(mix).contains(Op.EDIT)) {
+            System.out.println("No devices to edit; run tools.DataGenerator first");
+            return;
+        }
+        LoadDriver driver = new LoadDriver(users, deviceIds, mix);
+        System.out.printf(Locale.ROOT, "%d threads, %d devices, %d users, warm-up %d s, measuring %d s%n", threads,
+                deviceIds.size(), users.size(), warmupMs / 1000, measureMs / 1000);
+
+        long measureStart = System.nanoTime() + warmupMs * 1_000_000;
+        long end = measureStart + measureMs * 1_000_000;
+        Recorder[] recorders = new Recorder[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Recorder recorder = new Recorder();
+            recorders[t] = recorder;
+            Random random = new Random(seed + t);
+            Thread thread = new Thread(() -> {
+                try {
+                    driver.run(random, recorder, measureStart, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "clims-load-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        // audit rows are written in the background; include them in the run
+        AuditLogWriter.getInstance().flush(10_000);
+        print(recorders, measureMs);
+        System.out.println("Audit log writer: " + AuditLogWriter.getInstance().describeStats());
+        System.out.println("Connection pool: " + ConnectionPool.getInstance().describeStats());
+        AuditLogWriter.getInstance().shutdown(5_000);
+        ConnectionPool.getInstance().close();
+    }
+
+    private void run(Random random, Recorder recorder, long measureStart, long end) {
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            Op op = mix[random.nextInt(mix.length)];
+            boolean ok;
+            try {
+                ok = execute(op, random);
+            } catch (RuntimeException | SQLException e) {
+                ok = false;
+            }
+            long finished = System.nanoTime();
+            if (now >= measureStart) {
+                recorder.record(op, finished - now, ok);
+            }
+        }
+    }
+
+    private boolean execute(Op op, Random random) throws SQLException {
+        String timestamp = LocalDateTime.now().format(UIHelpers.DEFAULT_DTF);
+        switch (op) {
+            case LOGIN: {
+                User user = users.get(random.nextInt(users.size()));
+                User authenticated = UserDAO.authenticate(user.getUsername(), user.getPassword());
+                if (authenticated == null) {
+                    return false;
+                }
+                LogDAO.insertLoginLog(authenticated.getId(), "<User> login", timestamp);
+                return true;
+            }
+            case EDIT: {
+                Device d = DeviceRepository.getInstance().getById(deviceIds.get(random.nextInt(deviceIds.size())));
+                if (d == null) {
+                    return false;
+                }
+                DeviceStatus[] statuses = DeviceStatus.values();
+                d.setStatus(statuses[random.nextInt(statuses.length)].getLabel());
+                d.setNotes("Load test edit " + random.nextInt(1000));
+                if (!DeviceRepository.getInstance().update(d)) {
+                    return false;
+                }
+                User user = users.get(random.nextInt(users.size()));
+                LogDAO.insertActionLog(user.getId(),
+                        "Updated device: " + d.getDeviceNumber() + " (ID " + d.getId() + ")", timestamp);
+                return true;
+            }
+            case REPORT: {
+                LogQuery query = new LogQuery(random.nextBoolean() ? LogQuery.Kind.ACTION : LogQuery.Kind.LOGIN);
+                int[] rangeDays = { 1, 7, 30 };
+                query.setDateRange(System.currentTimeMillis() - rangeDays[random.nextInt(3)] * DAY_MS, null);
+                LogQuery.SortKey[] keys = LogQuery.SortKey.values();
+                query.setSort(keys[random.nextInt(keys.length)], random.nextBoolean());
+                LogDAO.countLogs(query);
+                LogDAO.getLogPage(query, null, 200);
+                return true;
+            }
+            default: {
+                DeviceRepository.getInstance().search(SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]);
+                return true;
+            }
+        }
+    }
+
+    private static Op[] parseMix(String spec) {
+        List<Op> slots = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] nameWeight = part.trim().split(":");
+            Op op = Op.valueOf(nameWeight[0].trim().toUpperCase(Locale.ROOT));
+            int weight = nameWeight.length > 1 ? Integer.parseInt(nameWeight[1].trim()) : 1;
+            for (int i = 0; i < weight; i++) {
+                slots.add(op);
+            }
+        }
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("Empty --mix");
+        }
+        return slots.toArray(new Op[0]);
+    }
+
+    private static void print(Recorder[] recorders, long measureMs) {
+        System.out.printf(Locale.ROOT, "%-8s %10s %10s %7s %9s %9s %9s %9s%n", "op", "count", "ops/s", "errors",
+                "p50 ms", "p90 ms", "p99 ms", "max ms");
+        long totalCount = 0;
+        for (Op op : Op.values()) {
+            long[] samples = Recorder.merge(recorders, op);
+            if (samples.length == 0) {
+                continue;
+            }
+            Arrays.sort(samples);
+            long errors = 0;
+            for (Recorder r : recorders) {
+                errors += r.errors[op.ordinal()];
+            }
+            totalCount += samples.length;
+            System.out.printf(Locale.ROOT, "%-8s %,10d %,10.0f %7d %9.3f %9.3f %9.3f %9.3f%n",
+                    op.name().toLowerCase(Locale.ROOT), samples.length, samples.length * 1000.0 / measureMs, errors,
+                    percentile(samples, 0.50), percentile(samples, 0.90), percentile(samples, 0.99),
+                    samples[samples.length - 1] / 1e6);
+        }
+        System.out.printf(Locale.ROOT, "%-8s %,10d %,10.0f%n", "total", totalCount, totalCount * 1000.0 / measureMs);
+    }
+
+    // nearest-rank percentile of sorted nanosecond samples, in milliseconds
+    private static double percentile(long[] sorted, double q) {
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    /*
+     * Latency samples of one thread, kept exactly (8 bytes per operation) so
+     * the percentiles are not approximations.
+     */
+    private static final class Recorder {
+        private final long[][] samples = new long[Op.values().length][1024];
+        private final int[] counts = new int[Op.values().length];
+        private final long[] errors = new long[Op.values().length];
+
+        void record(Op op, long nanos, boolean ok) {
+            int i = op.ordinal();
+            if (counts[i] == samples[i].length) {
+                samples[i] = Arrays.copyOf(samples[i], counts[i] * 2);
+            }
+            samples[i][counts[i]++] = nanos;
+            if (!ok) {
+                errors[i]++;
+            }
+        }
+
+        static long[] merge(Recorder[] recorders, Op op) {
+            int i = op.ordinal();
+            int total = 0;
+            for (Recorder r : recorders) {
+                total += r.counts[i];
+            }
+            long[] merged = new long[total];
+            int offset = 0;
+            for (Recorder r : recorders) {
+                System.arraycopy(r.samples[i], 0, merged, offset, r.counts[i]);
+                offset += r.counts[i];
+            }
+            return merged;
+        }
+    }
+}